@@ -0,0 +1,57 @@
+package benchmarks;
+
+import model.RobotWorld;
+import org.openjdk.jmh.annotations.*;
+import persistence.WorldCheckpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк сохранения мира в контрольную точку и восстановления из нее.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class CheckpointBenchmark {
+    @Param({"100000", "1000000"})
+    public int robots;
+
+    private RobotWorld world;
+    private WorldCheckpoint checkpoint;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        world = new RobotWorld(robots);
+        Random random = new Random(42);
+        for (int i = 0; i < robots; i++) {
+            world.addRobot(random.nextDouble() * 10000, random.nextDouble() * 10000, random.nextDouble() * 2 * Math.PI,
+                    random.nextDouble() * 10000, random.nextDouble() * 10000);
+        }
+        file = File.createTempFile("world", ".ckpt");
+        checkpoint = new WorldCheckpoint(file);
+        checkpoint.save(world);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        checkpoint.save(world);
+    }
+
+    @Benchmark
+    public RobotWorld restore() throws IOException {
+        RobotWorld restored = new RobotWorld();
+        checkpoint.restore(restored);
+        return restored;
+    }
+}
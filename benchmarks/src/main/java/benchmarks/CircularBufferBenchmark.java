@@ -0,0 +1,76 @@
+package benchmarks;
+
+import log.CircularBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк кольцевого буфера журнала CircularBuffer: добавление, чтение диапазона
+ * и обход итератором, в одном потоке и при конкуренции писателей с читателями.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class CircularBufferBenchmark {
+    @Param({"100", "10000"})
+    public int capacity;
+
+    private CircularBuffer<String> buffer;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        buffer = new CircularBuffer<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffer.add("message " + i);
+        }
+    }
+
+    @Benchmark
+    @Group("add")
+    public void add() {
+        buffer.add("message");
+    }
+
+    @Benchmark
+    @Group("range")
+    public void range(Blackhole blackhole) {
+        for (String entry : buffer.range(0, 50)) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("iterator")
+    public void iterate(Blackhole blackhole) {
+        for (String entry : buffer) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void contendedAdd() {
+        buffer.add("message");
+    }
+
+    @Benchmark
+    @Group("contended")
+    public void contendedRange(Blackhole blackhole) {
+        for (String entry : buffer.range(0, 50)) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    public void contendedIterate(Blackhole blackhole) {
+        for (String entry : buffer) {
+            blackhole.consume(entry);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import model.CollisionMode;
+import model.RobotWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк такта RobotWorld.step с обработкой столкновений. Поле растет вместе
+ * с числом роботов, так что их плотность постоянна, и время такта на одного робота
+ * должно оставаться примерно одинаковым от 100 до 100000 роботов. Цель каждого робота
+ * лежит внутри его окружности поворота, поэтому роботы кружат на месте, не прибывают
+ * и не разъезжаются за время замера.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollisionBenchmark {
+    /**
+     * Площадь поля на одного робота
+     */
+    private static final double AREA_PER_ROBOT = 2500;
+    /**
+     * Смещение цели влево от робота; меньше радиуса поворота v/ω = 100
+     */
+    private static final double ORBIT_TARGET_OFFSET = 50;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int robots;
+
+    @Param({"NONE", "OBSTACLES", "ALL"})
+    public CollisionMode collisions;
+
+    private RobotWorld world;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        double size = Math.sqrt(robots * AREA_PER_ROBOT);
+        world = new RobotWorld(robots);
+        world.setCollisionMode(collisions);
+        Random random = new Random(42);
+        for (int i = 0; i < robots / 10; i++) {
+            world.addObstacle(random.nextDouble() * size, random.nextDouble() * size, 5 + random.nextDouble() * 15);
+        }
+        for (int i = 0; i < robots; i++) {
+            double x = random.nextDouble() * size;
+            double y = random.nextDouble() * size;
+            double direction = random.nextDouble() * 2 * Math.PI;
+            world.addRobot(x, y, direction,
+                    x - ORBIT_TARGET_OFFSET * Math.sin(direction), y + ORBIT_TARGET_OFFSET * Math.cos(direction));
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        return world.step(10);
+    }
+}
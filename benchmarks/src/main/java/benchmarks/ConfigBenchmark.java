@@ -0,0 +1,66 @@
+package benchmarks;
+
+import gui.PrefixedMap;
+import gui.WindowConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк работы с конфигурацией окон: PrefixedMap.entrySet
+ * и загрузка WindowConfig.loadState на больших конфигурациях.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigBenchmark {
+    private static final int PREFIXES = 10;
+
+    @Param({"100", "10000"})
+    public int entries;
+
+    private PrefixedMap prefixedMap;
+    private WindowConfig windowConfig;
+    private File directory;
+    private File configFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<String, String> state = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            state.put("window" + (i % PREFIXES) + ".key" + i, Integer.toString(i));
+        }
+        prefixedMap = new PrefixedMap(state, "window0");
+
+        directory = Files.createTempDirectory("robots-bench").toFile();
+        windowConfig = new WindowConfig(directory.getPath(), "state.cfg");
+        windowConfig.saveState(state);
+        configFile = new File(directory, "state.cfg");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        configFile.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public void prefixedEntrySet(Blackhole blackhole) {
+        for (Map.Entry<String, String> entry : prefixedMap.entrySet()) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> loadState() {
+        return windowConfig.loadState();
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import log.LogRing;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк кольцевого буфера журнала без блокировок LogRing. Группы те же,
+ * что в CircularBufferBenchmark, чтобы результаты можно было сравнивать напрямую:
+ * добавление, чтение диапазона и обход среза, в одном потоке и при конкуренции
+ * трех писателей с читателями.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class LogRingBenchmark {
+    @Param({"100", "10000"})
+    public int capacity;
+
+    private LogRing<String> ring;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new LogRing<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring.add("message " + i);
+        }
+    }
+
+    @Benchmark
+    @Group("add")
+    public long add() {
+        return ring.add("message");
+    }
+
+    @Benchmark
+    @Group("range")
+    public void range(Blackhole blackhole) {
+        for (String entry : ring.view().range(0, 50)) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("iterator")
+    public void iterate(Blackhole blackhole) {
+        for (String entry : ring) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public long contendedAdd() {
+        return ring.add("message");
+    }
+
+    @Benchmark
+    @Group("contended")
+    public void contendedRange(Blackhole blackhole) {
+        for (String entry : ring.view().range(0, 50)) {
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    public void contendedIterate(Blackhole blackhole) {
+        for (String entry : ring) {
+            blackhole.consume(entry);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import log.LogChangeListener;
+import log.LogLevel;
+import log.LogWindowSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк LogWindowSource.append с разным числом зарегистрированных слушателей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogWindowSourceBenchmark {
+    @Param({"0", "1", "8", "64"})
+    public int listeners;
+
+    private LogWindowSource source;
+    /**
+     * Источник хранит слушателей по слабым ссылкам, поэтому держим их здесь.
+     */
+    private final List<LogChangeListener> registered = new ArrayList<>();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        source = new LogWindowSource(100);
+        registered.clear();
+        for (int i = 0; i < listeners; i++) {
+            LogChangeListener listener = () -> { };
+            registered.add(listener);
+            source.registerListener(listener);
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        source.append(LogLevel.Debug, "message");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void appendContended() {
+        source.append(LogLevel.Debug, "message");
+    }
+}
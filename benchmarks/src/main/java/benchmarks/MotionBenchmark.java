@@ -0,0 +1,37 @@
+package benchmarks;
+
+import model.DefaultGameModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк встроенной модели движения DefaultGameModel.moveRobot
+ * при прямолинейном движении и при повороте.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MotionBenchmark {
+    private DefaultGameModel model;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        model = new DefaultGameModel();
+    }
+
+    @Benchmark
+    public void moveStraight(Blackhole blackhole) {
+        model.moveRobot(0.1, 0, 10);
+        blackhole.consume(model.getX());
+    }
+
+    @Benchmark
+    public void moveTurning(Blackhole blackhole) {
+        model.moveRobot(0.1, 0.001, 10);
+        blackhole.consume(model.getX());
+    }
+}
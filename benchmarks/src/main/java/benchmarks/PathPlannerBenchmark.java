@@ -0,0 +1,46 @@
+package benchmarks;
+
+import model.Path;
+import model.PathPlanner;
+import model.RobotWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк планировщика путей: поиск нового пути A* на поле с препятствиями
+ * и повторный запрос, на который отвечает кэш.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathPlannerBenchmark {
+    private static final double SIZE = 1000;
+    private PathPlanner planner;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RobotWorld world = new RobotWorld();
+        Random obstacles = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            world.addObstacle(obstacles.nextDouble() * SIZE, obstacles.nextDouble() * SIZE, 5 + obstacles.nextDouble() * 15);
+        }
+        planner = world.getPathPlanner();
+    }
+
+    @Benchmark
+    public Path planUncached() {
+        // Случайные точки почти всегда попадают в разные ячейки, поэтому кэш не помогает
+        return planner.plan(random.nextDouble() * SIZE, random.nextDouble() * SIZE,
+                random.nextDouble() * SIZE, random.nextDouble() * SIZE).join();
+    }
+
+    @Benchmark
+    public Path planCached() {
+        return planner.plan(100 + random.nextDouble(), 100 + random.nextDouble(), 900, 900).join();
+    }
+}
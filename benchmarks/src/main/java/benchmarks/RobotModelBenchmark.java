@@ -0,0 +1,47 @@
+package benchmarks;
+
+import model.DefaultGameModel;
+import model.RobotModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк такта RobotModel.updateModel вместе с рассылкой событий слушателям.
+ * Цель недостижимо далека, поэтому робот движется на каждом такте.
+ * Слушатели бывают PropertyChangeListener (property) и RobotStateListener (state);
+ * с -prof gc путь state должен показывать 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotModelBenchmark {
+    @Param({"0", "1", "4"})
+    public int listeners;
+
+    @Param({"property", "state"})
+    public String listenerKind;
+
+    private RobotModel model;
+
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) {
+        model = new RobotModel(new DefaultGameModel());
+        model.setTarget(1_000_000_000, 1_000_000_000);
+        for (int i = 0; i < listeners; i++) {
+            if ("state".equals(listenerKind)) {
+                model.addStateListener((x, y, direction) -> blackhole.consume(x));
+            } else {
+                model.addPropertyChangeListener(blackhole::consume);
+            }
+        }
+    }
+
+    @Benchmark
+    public void updateModel() {
+        model.updateModel();
+    }
+}
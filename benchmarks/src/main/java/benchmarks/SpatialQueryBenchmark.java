@@ -0,0 +1,62 @@
+package benchmarks;
+
+import model.RobotWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк запросов к пространственному индексу RobotWorld в сравнении
+ * с полным перебором роботов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialQueryBenchmark {
+    @Param({"1000", "100000"})
+    public int robots;
+
+    private RobotWorld world;
+    private final int[] result = new int[1024];
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new RobotWorld(robots);
+        Random positions = new Random(42);
+        for (int i = 0; i < robots; i++) {
+            world.addRobot(positions.nextDouble() * 1000, positions.nextDouble() * 1000, 0);
+        }
+    }
+
+    @Benchmark
+    public int nearest() {
+        return world.findNearest(random.nextDouble() * 1000, random.nextDouble() * 1000, Double.POSITIVE_INFINITY);
+    }
+
+    @Benchmark
+    public int nearestByScan() {
+        double x = random.nextDouble() * 1000;
+        double y = random.nextDouble() * 1000;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < robots; i++) {
+            double dx = world.getX(i) - x;
+            double dy = world.getY(i) - y;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public int neighbours() {
+        return world.findNeighbours(random.nextInt(robots), 20, result);
+    }
+}
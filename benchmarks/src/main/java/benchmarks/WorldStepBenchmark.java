@@ -0,0 +1,54 @@
+package benchmarks;
+
+import model.MathBackend;
+import model.MotionKernelType;
+import model.RobotWorld;
+import model.StepMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+/**
+ * Бенчмарк пакетного такта RobotWorld.step для разных реализаций такта,
+ * тригонометрии и режимов шага. Цели роботов далеко, поэтому за время замера никто не прибывает.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class WorldStepBenchmark {
+    @Param({"1000", "100000"})
+    public int robots;
+
+    @Param({"SCALAR", "VECTOR"})
+    public MotionKernelType kernel;
+
+    @Param({"EXACT", "FAST"})
+    public MathBackend math;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public StepMode mode;
+
+    private RobotWorld world;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        world = new RobotWorld(robots);
+        world.setMotionKernel(kernel);
+        world.setMathBackend(math);
+        world.setStepMode(mode);
+        Random random = new Random(42);
+        for (int i = 0; i < robots; i++) {
+            world.addRobot(random.nextDouble() * 1000, random.nextDouble() * 1000,
+                    random.nextDouble() * 2 * Math.PI,
+                    1e9 * (random.nextDouble() - 0.5), 1e9 * (random.nextDouble() - 0.5));
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        return world.step(10);
+    }
+}
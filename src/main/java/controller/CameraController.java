@@ -0,0 +1,48 @@
+package controller;
+
+import view.Camera;
+import view.GameVisualizer;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+/**
+ * Контроллер камеры игрового поля: колесо мыши масштабирует мир относительно курсора,
+ * а перетаскивание любой кнопкой сдвигает его.
+ */
+public class CameraController {
+    /**
+     * Во сколько раз меняется масштаб за один шаг колеса
+     */
+    private static final double ZOOM_STEP = 1.2;
+    private int lastX;
+    private int lastY;
+    /**
+     * Подключает управление камерой к полю.
+     */
+    public CameraController(GameVisualizer view) {
+        MouseAdapter adapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                view.setCamera(view.getCamera().pan(e.getX() - lastX, e.getY() - lastY));
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                Camera camera = view.getCamera();
+                view.setCamera(camera.zoomAt(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation())));
+            }
+        };
+        view.addMouseListener(adapter);
+        view.addMouseMotionListener(adapter);
+        view.addMouseWheelListener(adapter);
+    }
+}
@@ -1,18 +1,136 @@
 package controller;
 
+import localization.LocaleManager;
+import log.Logger;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 import model.RobotModel;
-import javax.swing.*;
+import model.RobotWorld;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 /**
- * Класс GameController управляет обновлением модели робота через таймер.
+ * Класс GameController управляет обновлением мира роботов в отдельном потоке симуляции.
+ * Мир продвигается шагами фиксированной длительности: реальное время накапливается,
+ * и за каждый накопленный интервал выполняется один шаг. Если симуляция отстала
+ * больше чем на MAX_CATCH_UP_STEPS шагов, лишнее отставание отбрасывается.
+ * Новое состояние передается интерфейсу в потоке обработки событий,
+ * не более одного уведомления в очереди за раз.
+ * <p>
+ * Контроллер измеряет длительность шага (tick.duration), отклонение пробуждения потока
+ * от расписания (tick.jitter) и задержку уведомления в очереди событий (edt.delay).
  */
 public class GameController {
-    private final Timer timer;
     /**
-     * Создает GameController и запускает таймер для обновления модели.
+     * Длительность шага симуляции в миллисекундах по умолчанию
+     */
+    public static final int DEFAULT_STEP_MILLIS = 10;
+    /**
+     * Наибольшее число шагов, которыми симуляция догоняет отставание за один проход
+     */
+    private static final int MAX_CATCH_UP_STEPS = 5;
+    private static final Histogram TICK_DURATION = MetricsRegistry.getInstance().histogram("tick.duration");
+    private static final Histogram TICK_JITTER = MetricsRegistry.getInstance().histogram("tick.jitter");
+    private static final Histogram EDT_DELAY = MetricsRegistry.getInstance().histogram("edt.delay");
+    private final RobotModel model;
+    private final RobotWorld world;
+    private final int stepMillis;
+    private final long stepNanos;
+    private final Thread thread;
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+    private volatile boolean running = true;
+    private volatile long droppedSteps = 0;
+    /**
+     * Создает GameController и запускает поток симуляции с шагом по умолчанию.
      */
     public GameController(RobotModel model) {
-        this.timer = new Timer(10, e -> model.updateModel());
-        timer.start();
+        this(model, DEFAULT_STEP_MILLIS);
     }
+    /**
+     * Создает GameController и запускает поток симуляции с заданной длительностью шага.
+     *
+     * @param stepMillis Длительность шага в миллисекундах, она же передается модели движения.
+     */
+    public GameController(RobotModel model, int stepMillis) {
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("stepMillis must be positive: " + stepMillis);
+        }
+        this.model = model;
+        this.world = model.getWorld();
+        this.stepMillis = stepMillis;
+        this.stepNanos = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        this.thread = new Thread(this::runSimulation, "robot-simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    /**
+     * Цикл потока симуляции с фиксированным шагом.
+     */
+    private void runSimulation() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long wakeUp = previous;
+        while (running) {
+            long now = System.nanoTime();
+            TICK_JITTER.record(Math.abs(now - wakeUp));
+            accumulator += now - previous;
+            previous = now;
 
+            int steps = 0;
+            int moved = 0;
+            try {
+                while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS) {
+                    long start = System.nanoTime();
+                    moved += world.step(stepMillis);
+                    TICK_DURATION.recordSince(start);
+                    accumulator -= stepNanos;
+                    steps++;
+                }
+            } catch (RuntimeException e) {
+                running = false;
+                Logger.error(LocaleManager.getInstance().getString("simulation.failed")
+                        + " " + e.getMessage());
+                return;
+            }
+            if (accumulator >= stepNanos) {
+                droppedSteps += accumulator / stepNanos;
+                accumulator %= stepNanos;
+            }
+            if (moved > 0) {
+                publishState();
+            }
+            long sleep = stepNanos - accumulator;
+            wakeUp = System.nanoTime() + sleep;
+            LockSupport.parkNanos(sleep);
+        }
+    }
+    /**
+     * Передает новое состояние интерфейсу. Пока предыдущее уведомление
+     * не обработано потоком событий, новые не ставятся в очередь.
+     */
+    private void publishState() {
+        if (publishPending.compareAndSet(false, true)) {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                EDT_DELAY.recordSince(posted);
+                publishPending.set(false);
+                model.firePositionChanged();
+            });
+        }
+    }
+    /**
+     * Останавливает поток симуляции.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+    /**
+     * Возвращает число шагов, пропущенных из-за превышения предела догоняния.
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
 }
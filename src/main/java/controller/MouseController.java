@@ -2,13 +2,21 @@ package controller;
 
 import localization.LocaleManager;
 import log.Logger;
+import model.Path;
 import model.RobotModel;
+import model.RobotWorld;
+import view.Camera;
 import view.GameVisualizer;
 
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.concurrent.CompletableFuture;
 /**
  * Контроллер для обработки кликов мыши и установки новой цели робота.
+ * Цель получает ближайший к месту клика робот мира; его поиск выполняется
+ * через пространственный индекс RobotWorld, а не перебором всех роботов.
+ * Путь к цели в обход препятствий строится планировщиком мира вне потока событий.
+ * Точка клика переводится в координаты мира камерой поля.
  */
 public class MouseController {
     /**
@@ -18,7 +26,21 @@ public class MouseController {
         view.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                model.setTarget(e.getX(), e.getY());
+                RobotWorld world = model.getWorld();
+                Camera camera = view.getCamera();
+                double x = camera.toWorldX(e.getX());
+                double y = camera.toWorldY(e.getY());
+                int nearest = world.findNearest(x, y, Double.POSITIVE_INFINITY);
+                CompletableFuture<Path> path;
+                if (nearest < 0 || nearest == model.getIndex()) {
+                    path = model.navigateTo((int) Math.round(x), (int) Math.round(y));
+                } else {
+                    path = world.getPathPlanner().navigate(nearest, x, y);
+                }
+                path.exceptionally(error -> {
+                    Logger.error(LocaleManager.getInstance().getString("path.failed") + " " + error.getMessage());
+                    return null;
+                });
                 Logger.debug(
                         LocaleManager.getInstance().getString("coordinates.update"));
             }
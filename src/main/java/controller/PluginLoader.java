@@ -0,0 +1,50 @@
+package controller;
+
+import model.GameModel;
+import view.RobotVisualizer;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+/**
+ * Загружает классы плагина робота из JAR-файла.
+ * Плагин содержит визуализатор view.CustomRobotVisualizer
+ * и модель движения model.CustomRobotModel.
+ */
+public class PluginLoader {
+    public static final String VISUALIZER_CLASS = "view.CustomRobotVisualizer";
+    public static final String MODEL_CLASS = "model.CustomRobotModel";
+    private final File jarFile;
+    private final ClassLoader classLoader;
+    /**
+     * Создает загрузчик классов для указанного JAR-файла.
+     */
+    public PluginLoader(File jarFile) throws MalformedURLException {
+        this.jarFile = jarFile;
+        URL jarUrl = jarFile.toURI().toURL();
+        this.classLoader = new URLClassLoader(
+                new URL[]{jarUrl},
+                getClass().getClassLoader()
+        );
+    }
+    /**
+     * Создает новый экземпляр визуализатора из плагина.
+     */
+    public RobotVisualizer createVisualizer() throws ReflectiveOperationException {
+        Class<?> visualizerClass = classLoader.loadClass(VISUALIZER_CLASS);
+        return (RobotVisualizer) visualizerClass.getDeclaredConstructor().newInstance();
+    }
+    /**
+     * Создает новый экземпляр модели движения из плагина.
+     * Каждому роботу нужен свой экземпляр, так как модель хранит его состояние.
+     */
+    public GameModel createModel() throws ReflectiveOperationException {
+        Class<?> modelClass = classLoader.loadClass(MODEL_CLASS);
+        return (GameModel) modelClass.getDeclaredConstructor().newInstance();
+    }
+
+    public File getJarFile() {
+        return jarFile;
+    }
+}
@@ -1,45 +1,66 @@
 package gui;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.EventQueue;
-import java.awt.TextArea;
+import java.awt.Rectangle;
 
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JInternalFrame;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 
 import localization.LocaleChangeListener;
 import localization.LocaleManager;
 import log.LogChangeListener;
 import log.LogEntry;
+import log.LogLevel;
+import log.LogRing;
 import log.LogWindowSource;
 /**
  * LogWindow представляет внутреннее окно Swing, отображающее журнал работы приложения.
  * Класс реализует интерфейс LogChangeListener для автоматического обновления
  * содержимого журнала при изменении данных.
+ * Записи показываются списком (JList) с моделью поверх кольцевого буфера источника:
+ * при обновлении модель сообщает только о вытесненных и добавленных записях,
+ * а список с фиксированной высотой строки рисует только видимые строки,
+ * поэтому стоимость обновления и отрисовки не зависит от размера буфера.
  */
 public class LogWindow extends JInternalFrame implements LogChangeListener, LocaleChangeListener
 {
+    /**
+     * Образец строки, по которому список определяет ширину и высоту строк
+     */
+    private static final LogEntry PROTOTYPE_ENTRY = new LogEntry(LogLevel.Debug,
+            "Typical log message of an ordinary length");
+    private static final int VISIBLE_ROWS = 30;
     private LogWindowSource m_logSource;
-    private TextArea m_logContent;
+    private final LogListModel m_logModel;
+    private final JList<LogEntry> m_logContent;
     /**
      * Конструктор LogWindow.
      * Инициализирует внутреннее окно с заголовком "Протокол работы", регистрирует слушателя изменений журнала,
-     * создает текстовое поле для вывода логов и добавляет его в центральную область панели.
+     * создает список для вывода логов и добавляет его в центральную область панели.
      * @param logSource Источник журнала, предоставляющий данные для отображения.
      */
-    public LogWindow(LogWindowSource logSource) 
+    public LogWindow(LogWindowSource logSource)
     {
         super(LocaleManager.getInstance().getString("logWindowTitle")
                 , true, true, true, true);
         m_logSource = logSource;
-        m_logSource.registerListener(this);
-        m_logContent = new TextArea("");
-        m_logContent.setSize(200, 500);
-        
+        m_logModel = new LogListModel(logSource);
+        m_logContent = new JList<>(m_logModel);
+        m_logContent.setCellRenderer(new LogEntryRenderer());
+        m_logContent.setPrototypeCellValue(PROTOTYPE_ENTRY);
+        m_logContent.setVisibleRowCount(VISIBLE_ROWS);
+
         JPanel panel = new JPanel(new BorderLayout());
-        panel.add(m_logContent, BorderLayout.CENTER);
+        panel.add(new JScrollPane(m_logContent), BorderLayout.CENTER);
         getContentPane().add(panel);
         LocaleManager.getInstance().addListener(this);
+        m_logSource.registerListener(this);
         pack();
         updateLogContent();
     }
@@ -51,25 +72,85 @@ public class LogWindow extends JInternalFrame implements LogChangeListener, Loca
         setTitle(LocaleManager.getInstance().getString("logWindowTitle"));
     }
     /**
-     * Обновляет содержимое текстового поля журнала, собирая все записи из источника лога.
+     * Переносит в список изменения источника лога. Если была видна последняя запись,
+     * список прокручивается к новой последней записи.
      */
     private void updateLogContent()
     {
-        StringBuilder content = new StringBuilder();
-        for (LogEntry entry : m_logSource.all())
-        {
-            content.append(entry.getMessage()).append("\n");
+        int size = m_logModel.getSize();
+        Rectangle visible = m_logContent.getVisibleRect();
+        boolean atEnd = size == 0 || visible.y + visible.height >= m_logContent.getHeight();
+        m_logModel.refresh();
+        if (atEnd && m_logModel.getSize() > 0) {
+            m_logContent.ensureIndexIsVisible(m_logModel.getSize() - 1);
         }
-        m_logContent.setText(content.toString());
-        m_logContent.invalidate();
     }
     /**
      * Метод вызывается при изменении содержимого журнала.
-     * Запускает обновление содержимого текстового поля в потоке обработки событий AWT.
+     * Запускает обновление списка в потоке обработки событий AWT.
      */
     @Override
     public void onLogChanged()
     {
         EventQueue.invokeLater(this::updateLogContent);
     }
+    /**
+     * Модель списка поверх кольцевого буфера: строка i - запись с номером from + i.
+     * Сами записи не копируются, а читаются из буфера при отрисовке строки.
+     */
+    private static final class LogListModel extends AbstractListModel<LogEntry> {
+        private final LogWindowSource source;
+        /**
+         * Номера первой записи и записи после последней, известные списку
+         */
+        private long from;
+        private long to;
+
+        LogListModel(LogWindowSource source) {
+            this.source = source;
+        }
+        /**
+         * Сдвигает окно номеров к текущему содержимому буфера и сообщает списку
+         * о вытесненных записях в начале и добавленных в конце.
+         */
+        void refresh() {
+            LogRing.View<LogEntry> view = source.since(0);
+            long evicted = Math.min(view.getFromSequence(), to) - from;
+            if (evicted > 0) {
+                from += evicted;
+                fireIntervalRemoved(this, 0, (int) evicted - 1);
+            }
+            if (view.getFromSequence() > to) {
+                from = view.getFromSequence();
+                to = from;
+            }
+            long added = view.getToSequence() - to;
+            if (added > 0) {
+                int first = getSize();
+                to = view.getToSequence();
+                fireIntervalAdded(this, first, first + (int) added - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return (int) (to - from);
+        }
+        /**
+         * Возвращает запись или null, если она уже вытеснена из буфера.
+         */
+        @Override
+        public LogEntry getElementAt(int index) {
+            return source.get(from + index);
+        }
+    }
+
+    private static final class LogEntryRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            String text = value instanceof LogEntry entry ? entry.getMessage() : "";
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+        }
+    }
 }
@@ -1,13 +1,21 @@
 package gui;
 
+import controller.CameraController;
 import controller.GameController;
 import controller.MouseController;
+import controller.PluginLoader;
 import localization.LocaleChangeListener;
 import localization.LocaleManager;
 import log.Logger;
+import metrics.MetricsRegistry;
+import metrics.PluginLoadEvent;
 import model.DefaultGameModel;
 import model.GameModel;
 import model.RobotModel;
+import model.WorldState;
+import persistence.SimulationRecorder;
+import persistence.SimulationReplayer;
+import persistence.WorldCheckpoint;
 import view.DefaultRobotVisualizer;
 import view.GameVisualizer;
 import view.RobotCoordinatesWindow;
@@ -21,8 +29,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,13 +37,19 @@ import java.util.List;
 /**
  * Представляет главное окно приложения.
  * Оно управляет внутренними окнами, пользовательским интерфейсом
- * (меню, визуализаторы, лог), а также сохраняет и восстанавливает состояние между запусками.
+ * (меню, визуализаторы, лог), а также сохраняет и восстанавливает состояние окон
+ * и мира роботов между запусками.
  * Кроме того, данный класс реализует интерфейс LocaleChangeListener и поддерживает
  * локализацию пользовательского интерфейса, включая меню и сообщения.
  */
 public class MainApplicationFrame extends JFrame implements LocaleChangeListener {
     private final JDesktopPane desktopPane = new JDesktopPane();
     private final WindowConfig windowConfig;
+    private final WorldCheckpoint checkpoint;
+    /**
+     * Файл, в который при выходе записываются метрики
+     */
+    private final File metricsFile;
     private final List<WindowState> windowStates = new ArrayList<>();
     private RobotModel model = new RobotModel(new DefaultGameModel());
     private final GameVisualizer view = new GameVisualizer(model, new DefaultRobotVisualizer());
@@ -53,6 +66,13 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
     private JMenuItem englishItem;
     private JMenuItem loadRobotItem;
     private JMenuItem defaultSettingsItem;
+    private JMenu recordingMenu;
+    private JMenuItem recordItem;
+    private JMenuItem replayItem;
+    /**
+     * Запись симуляции, которая сейчас ведется; null - запись не ведется
+     */
+    private SimulationRecorder recorder;
     /**
      * Конструктор, инициализирующий главное окно:
      * Создает и отображает визуализатор и координаты робота.
@@ -61,11 +81,16 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
      */
     public MainApplicationFrame() {
         LocaleManager.getInstance().addListener(this);
-        new GameController(model);
-        new MouseController(model, view);
-
         String userDir = System.getProperty("user.home");
         this.windowConfig = new WindowConfig(userDir, "state.cfg");
+        this.checkpoint = new WorldCheckpoint(new File(userDir, "world.ckpt"));
+        this.metricsFile = new File(userDir, "metrics.txt");
+        restoreWorld();
+        model.getWorld().setTrajectoryHistory(GameVisualizer.createTrailHistory(GameController.DEFAULT_STEP_MILLIS));
+
+        new GameController(model);
+        new MouseController(model, view);
+        new CameraController(view);
 
         int inset = 50;
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
@@ -88,6 +113,11 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
         addWindow(robotCoordinatesWindow);
         windowStates.add(new InternalFrameStateAdapter(robotCoordinatesWindow, "coordinate"));
 
+        MetricsWindow metricsWindow = new MetricsWindow();
+        metricsWindow.setSize(500, 250);
+        addWindow(metricsWindow);
+        windowStates.add(new InternalFrameStateAdapter(metricsWindow, "metrics"));
+
         windowStates.add(new MainFrameStateAdapter(this, "main"));
 
         restoreStateFromConfig();
@@ -126,6 +156,9 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
         pluginsMenu.setText(locale.getString("menu.plugins"));
         loadRobotItem.setText(locale.getString("menu.loadRobot"));
         defaultSettingsItem.setText(locale.getString("menu.default"));
+        recordingMenu.setText(locale.getString("menu.recording"));
+        recordItem.setText(locale.getString(recorder == null ? "menu.record.start" : "menu.record.stop"));
+        replayItem.setText(locale.getString("menu.replay"));
     }
     /**
      * Создает меню выбора языка с двумя пунктами — Русский и Английский.
@@ -180,6 +213,7 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
         menuBar.add(createManagementMenu());
         menuBar.add(createLanguageMenu());
         menuBar.add(createPluginsMenu());
+        menuBar.add(createRecordingMenu());
         updateMenuTexts();
         return menuBar;
     }
@@ -275,6 +309,83 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
         pluginsMenu.add(defaultSettingsItem);
         return pluginsMenu;
     }
+    /**
+     * Создает меню "Запись" для записи симуляции в файл и ее воспроизведения.
+     */
+    private JMenu createRecordingMenu() {
+        recordingMenu = new JMenu();
+        recordItem = new JMenuItem();
+        replayItem = new JMenuItem();
+        recordItem.addActionListener(e -> toggleRecording());
+        replayItem.addActionListener(e -> openReplay());
+        recordingMenu.add(recordItem);
+        recordingMenu.add(replayItem);
+        return recordingMenu;
+    }
+    /**
+     * Начинает запись симуляции в выбранный файл или останавливает текущую запись.
+     */
+    private void toggleRecording() {
+        if (recorder != null) {
+            stopRecording();
+        } else {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Robot recordings", "rec"));
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    recorder = SimulationRecorder.start(model.getWorld(), fileChooser.getSelectedFile(),
+                            SimulationRecorder.DEFAULT_KEYFRAME_INTERVAL);
+                } catch (IOException ex) {
+                    showRecordingError(ex);
+                }
+            }
+        }
+        updateMenuTexts();
+    }
+
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.close();
+        } catch (IOException ex) {
+            showRecordingError(ex);
+        }
+        recorder = null;
+    }
+
+    private void showRecordingError(IOException ex) {
+        Logger.error(LocaleManager.getInstance().getString("record.failed") + " " + ex.getMessage());
+        JOptionPane.showMessageDialog(this,
+                LocaleManager.getInstance().getString("record.failed") + " " + ex.getMessage(),
+                LocaleManager.getInstance().getString("error"), JOptionPane.ERROR_MESSAGE);
+    }
+    /**
+     * Открывает выбранную запись симуляции в окне воспроизведения.
+     */
+    private void openReplay() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Robot recordings", "rec"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            SimulationReplayer replayer = new SimulationReplayer(fileChooser.getSelectedFile());
+            if (replayer.getWorld().size() == 0) {
+                replayer.close();
+                throw new IOException("recording has no robots");
+            }
+            ReplayWindow replayWindow = new ReplayWindow(replayer, GameController.DEFAULT_STEP_MILLIS);
+            replayWindow.setSize(400, 450);
+            addWindow(replayWindow);
+        } catch (IOException ex) {
+            Logger.error(LocaleManager.getInstance().getString("replay.failed") + " " + ex.getMessage());
+            JOptionPane.showMessageDialog(this,
+                    LocaleManager.getInstance().getString("replay.failed") + " " + ex.getMessage(),
+                    LocaleManager.getInstance().getString("error"), JOptionPane.ERROR_MESSAGE);
+        }
+    }
     private void setDefaultSetting(){
         view.setVisualizer(new DefaultRobotVisualizer());
         model.setModel(new DefaultGameModel());
@@ -296,33 +407,32 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
      * Загружает и инициализирует плагин робота из указанного JAR-файла
      */
     private void loadRobotFromJar(File jarFile) {
+        PluginLoadEvent event = new PluginLoadEvent();
+        event.begin();
+        event.jar = jarFile.getPath();
         try {
-            URL jarUrl = jarFile.toURI().toURL();
-            URLClassLoader classLoader = new URLClassLoader(
-                    new URL[]{jarUrl},
-                    getClass().getClassLoader()
-            );
-
-            Class<?> visualizerClass = classLoader.loadClass("view.CustomRobotVisualizer");
-            RobotVisualizer visualizer = (RobotVisualizer)visualizerClass.getDeclaredConstructor().newInstance();
+            PluginLoader pluginLoader = new PluginLoader(jarFile);
+            RobotVisualizer visualizer = pluginLoader.createVisualizer();
 
             view.setVisualizer(visualizer);
 
-            Class<?> modelClass = classLoader.loadClass("model.CustomRobotModel");
-            GameModel modelC = (GameModel)modelClass.getDeclaredConstructor().newInstance();
+            GameModel modelC = pluginLoader.createModel();
 
             model.setModel(modelC);
-            Logger.debug(LocaleManager.getInstance().getString("robot.load.successfully"));
-            JOptionPane.showMessageDialog(this,
-                    LocaleManager.getInstance().getString("robot.load.successfully"),
-                    LocaleManager.getInstance().getString("success"), JOptionPane.INFORMATION_MESSAGE);
-
         } catch (Exception ex) {
+            event.commit();
             Logger.error(LocaleManager.getInstance().getString("robot.load.failed") + " " +ex.getMessage());
             JOptionPane.showMessageDialog(this,
                     LocaleManager.getInstance().getString("robot.load.error") + " " + ex.getMessage(),
                     LocaleManager.getInstance().getString("error"), JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        event.success = true;
+        event.commit();
+        Logger.debug(LocaleManager.getInstance().getString("robot.load.successfully"));
+        JOptionPane.showMessageDialog(this,
+                LocaleManager.getInstance().getString("robot.load.successfully"),
+                LocaleManager.getInstance().getString("success"), JOptionPane.INFORMATION_MESSAGE);
     }
     /**
      * Сохраняет состояние всех окон в конфигурационный файл.
@@ -347,6 +457,42 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
             }
         }
     }
+    /**
+     * Восстанавливает мир роботов из контрольной точки предыдущего запуска, если она есть.
+     */
+    private void restoreWorld() {
+        try {
+            WorldState state = new WorldState();
+            if (checkpoint.load(state) && state.size() > 0) {
+                model.getWorld().restoreState(state);
+            }
+        } catch (IOException e) {
+            Logger.error(LocaleManager.getInstance().getString("checkpoint.failed") + " " + e.getMessage());
+        }
+    }
+    /**
+     * Сохраняет мир роботов в контрольную точку.
+     */
+    private void saveWorld() {
+        try {
+            checkpoint.save(model.getWorld());
+        } catch (IOException e) {
+            Logger.error(LocaleManager.getInstance().getString("checkpoint.failed") + " " + e.getMessage());
+            JOptionPane.showMessageDialog(this,
+                    LocaleManager.getInstance().getString("checkpoint.failed") + " " + e.getMessage(),
+                    LocaleManager.getInstance().getString("error"), JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    /**
+     * Записывает значения метрик в файл metricsFile.
+     */
+    private void saveMetrics() {
+        try {
+            MetricsRegistry.getInstance().dump(metricsFile);
+        } catch (IOException e) {
+            Logger.error(LocaleManager.getInstance().getString("metrics.failed") + " " + e.getMessage());
+        }
+    }
     /**
      * Подтверждает выход из приложения и сохраняет состояние перед выходом.
      */
@@ -368,6 +514,9 @@ public class MainApplicationFrame extends JFrame implements LocaleChangeListener
 
         if (result == JOptionPane.YES_OPTION) {
             localeManager.saveLanguage();
+            stopRecording();
+            saveWorld();
+            saveMetrics();
             saveStateToConfig();
             dispose();
             System.exit(0);
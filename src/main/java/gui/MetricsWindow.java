@@ -0,0 +1,117 @@
+package gui;
+
+import localization.LocaleChangeListener;
+import localization.LocaleManager;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+import javax.swing.JInternalFrame;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+/**
+ * Внутреннее окно с текущими значениями метрик приложения (MetricsRegistry).
+ * Таблица обновляется раз в секунду; частота считается по приросту значения
+ * за последний период обновления, длительности выводятся в миллисекундах.
+ */
+class MetricsWindow extends JInternalFrame implements LocaleChangeListener {
+    private static final int REFRESH_MILLIS = 1000;
+    private static final String[] COLUMN_KEYS = {"metrics.name", "metrics.count", "metrics.rate",
+            "metrics.mean", "metrics.p50", "metrics.p99", "metrics.max"};
+    private final MetricsTableModel tableModel = new MetricsTableModel();
+    private final Timer timer = new Timer(REFRESH_MILLIS, event -> tableModel.refresh());
+
+    MetricsWindow() {
+        super(LocaleManager.getInstance().getString("metricsWindowTitle"), true, true, true, true);
+        JTable table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                timer.stop();
+                LocaleManager.getInstance().removeListener(MetricsWindow.this);
+            }
+        });
+        LocaleManager.getInstance().addListener(this);
+        tableModel.refresh();
+        timer.start();
+        pack();
+    }
+    /**
+     * Вызывается при смене локали.
+     */
+    @Override
+    public void onLocaleChanged() {
+        setTitle(LocaleManager.getInstance().getString("metricsWindowTitle"));
+        tableModel.fireTableStructureChanged();
+    }
+
+    private static final class MetricsTableModel extends AbstractTableModel {
+        private final List<Object[]> rows = new ArrayList<>();
+        /**
+         * Значения счетчиков и гистограмм при прошлом обновлении и его время
+         */
+        private final Map<String, Long> previousCounts = new HashMap<>();
+        private long previousNanos = System.nanoTime();
+
+        void refresh() {
+            long now = System.nanoTime();
+            double seconds = Math.max((now - previousNanos) / 1e9, 1e-3);
+            previousNanos = now;
+            rows.clear();
+            MetricsRegistry registry = MetricsRegistry.getInstance();
+            for (Counter counter : registry.getCounters()) {
+                long value = counter.get();
+                rows.add(new Object[]{counter.getName(), value, rate(counter.getName(), value, seconds),
+                        "", "", "", ""});
+            }
+            for (Histogram histogram : registry.getHistograms()) {
+                long count = histogram.getCount();
+                rows.add(new Object[]{histogram.getName(), count, rate(histogram.getName(), count, seconds),
+                        millis(histogram.getMean()), millis(histogram.getPercentile(50)),
+                        millis(histogram.getPercentile(99)), millis(histogram.getMax())});
+            }
+            fireTableDataChanged();
+        }
+
+        private String rate(String name, long value, double seconds) {
+            Long previous = previousCounts.put(name, value);
+            return String.format(Locale.ROOT, "%.1f", (value - (previous == null ? value : previous)) / seconds);
+        }
+
+        private static String millis(double nanos) {
+            return String.format(Locale.ROOT, "%.3f", MetricsRegistry.millis(nanos));
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_KEYS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return LocaleManager.getInstance().getString(COLUMN_KEYS[column]);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package gui;
+
+import controller.CameraController;
+import localization.LocaleChangeListener;
+import localization.LocaleManager;
+import log.Logger;
+import model.RobotModel;
+import persistence.SimulationReplayer;
+import view.DefaultRobotVisualizer;
+import view.GameVisualizer;
+
+import javax.swing.JButton;
+import javax.swing.JInternalFrame;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.Timer;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
+import java.awt.BorderLayout;
+import java.io.IOException;
+/**
+ * Внутреннее окно воспроизведения записи симуляции. Показывает мир записи через
+ * GameVisualizer, воспроизводит такты по таймеру в потоке обработки событий
+ * и позволяет перейти к любому такту ползунком.
+ */
+class ReplayWindow extends JInternalFrame implements LocaleChangeListener {
+    private final SimulationReplayer replayer;
+    private final RobotModel model;
+    private final JSlider slider;
+    private final JButton playButton = new JButton();
+    private final Timer timer;
+    /**
+     * Признак того, что ползунок двигает само воспроизведение, а не пользователь
+     */
+    private boolean updatingSlider = false;
+    /**
+     * Создает окно воспроизведения; окно закрывает replayer, когда закрывается само.
+     *
+     * @param stepMillis Период таймера воспроизведения.
+     */
+    ReplayWindow(SimulationReplayer replayer, int stepMillis) {
+        super(LocaleManager.getInstance().getString("replayWindowTitle"), true, true, true, true);
+        this.replayer = replayer;
+        this.model = new RobotModel(replayer.getWorld(), 0);
+        replayer.getWorld().setTrajectoryHistory(GameVisualizer.createTrailHistory(stepMillis));
+        GameVisualizer view = new GameVisualizer(model, new DefaultRobotVisualizer());
+        new CameraController(view);
+        slider = new JSlider((int) replayer.getFirstTick(), (int) replayer.getLastTick(),
+                (int) replayer.getTick());
+        slider.addChangeListener(event -> {
+            if (!updatingSlider) {
+                seek(slider.getValue());
+            }
+        });
+        timer = new Timer(stepMillis, event -> playNext());
+        playButton.addActionListener(event -> {
+            if (timer.isRunning()) {
+                timer.stop();
+            } else {
+                timer.start();
+            }
+            updateTexts();
+        });
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.add(playButton, BorderLayout.WEST);
+        controls.add(slider, BorderLayout.CENTER);
+        add(view, BorderLayout.CENTER);
+        add(controls, BorderLayout.SOUTH);
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                close();
+            }
+        });
+        LocaleManager.getInstance().addListener(this);
+        updateTexts();
+        pack();
+    }
+
+    private void playNext() {
+        try {
+            if (!replayer.next()) {
+                timer.stop();
+                updateTexts();
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        updatingSlider = true;
+        slider.setValue((int) replayer.getTick());
+        updatingSlider = false;
+        model.firePositionChanged();
+    }
+
+    private void seek(long tick) {
+        try {
+            replayer.seek(tick);
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        model.firePositionChanged();
+    }
+
+    private void fail(IOException e) {
+        timer.stop();
+        updateTexts();
+        Logger.error(LocaleManager.getInstance().getString("replay.failed") + " " + e.getMessage());
+    }
+
+    private void close() {
+        timer.stop();
+        LocaleManager.getInstance().removeListener(this);
+        try {
+            replayer.close();
+        } catch (IOException e) {
+            Logger.error(LocaleManager.getInstance().getString("replay.failed") + " " + e.getMessage());
+        }
+    }
+
+    private void updateTexts() {
+        LocaleManager locale = LocaleManager.getInstance();
+        setTitle(locale.getString("replayWindowTitle"));
+        playButton.setText(locale.getString(timer.isRunning() ? "replay.pause" : "replay.play"));
+    }
+    /**
+     * Вызывается при смене локали.
+     */
+    @Override
+    public void onLocaleChanged() {
+        updateTexts();
+    }
+}
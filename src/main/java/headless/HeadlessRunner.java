@@ -0,0 +1,508 @@
+package headless;
+
+import controller.PluginLoader;
+import model.CollisionMode;
+import model.MathBackend;
+import model.MotionKernelType;
+import model.RobotWorld;
+import model.StepMode;
+import model.Trajectory;
+import model.WorldState;
+import persistence.SimulationRecorder;
+import persistence.SimulationReplayer;
+import persistence.WorldCheckpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * HeadlessRunner представляет точку входа для запуска симуляции без графического интерфейса.
+ * Строит мир роботов (в том числе с моделью движения из плагина), выполняет заданное
+ * число тактов с максимальной скоростью или с фиксированной частотой и выводит
+ * пропускную способность, перцентили длительности такта и итоговое состояние.
+ * Прогон можно записать в файл и затем воспроизвести с проверкой совпадения.
+ */
+public class HeadlessRunner {
+    /**
+     * Запас на округление в проверке одного такта FAST
+     */
+    private static final double FAST_STEP_SLACK = 1e-9;
+    private int robots = 1000;
+    private long ticks = 10_000;
+    private double rate = 0;
+    private int stepMillis = 10;
+    private double worldSize = 1000;
+    private long seed = 42;
+    private StepMode stepMode = StepMode.fromProperty();
+    private MotionKernelType kernel = MotionKernelType.fromProperty();
+    private MathBackend math = MathBackend.fromProperty();
+    private CollisionMode collisions = CollisionMode.fromProperty();
+    private int obstacles = 0;
+    private boolean verify = false;
+    private boolean analytic = false;
+    private File plugin;
+    private File record;
+    private File replay;
+    private File load;
+    private File save;
+    private int keyframeInterval = SimulationRecorder.DEFAULT_KEYFRAME_INTERVAL;
+    /**
+     * Точка входа. Разбирает параметры командной строки и запускает симуляцию.
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && ("--help".equals(args[0]) || "-h".equals(args[0]))) {
+            printUsage();
+            return;
+        }
+        HeadlessRunner runner = new HeadlessRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        try {
+            runner.run();
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Failed to load plugin: " + e);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e);
+            System.exit(1);
+        }
+    }
+    /**
+     * Выводит описание параметров командной строки.
+     */
+    private static void printUsage() {
+        System.err.println("Usage: java -cp Robots.jar headless.HeadlessRunner [options]");
+        System.err.println("  --robots N     number of robots (default 1000)");
+        System.err.println("  --ticks N      number of ticks to run (default 10000)");
+        System.err.println("  --rate HZ      fixed tick rate, 0 runs as fast as possible (default 0)");
+        System.err.println("  --step MS      tick duration passed to the motion model (default 10)");
+        System.err.println("  --size S       side of the square world (default 1000)");
+        System.err.println("  --seed N       random seed for initial positions and targets (default 42)");
+        System.err.println("  --mode M       sequential or parallel (default from robots.stepMode)");
+        System.err.println("  --kernel K     scalar or vector (default from robots.kernel);");
+        System.err.println("                 vector needs --add-modules jdk.incubator.vector");
+        System.err.println("  --math M       exact or fast trigonometry for the scalar kernel (default from robots.math)");
+        System.err.println("  --collisions C none, obstacles or all (default from robots.collisions)");
+        System.err.println("  --obstacles N  number of random circular obstacles (default 0)");
+        System.err.println("  --analytic     jump every robot to the end time in closed form instead of ticking");
+        System.err.println("  --verify       also run a scalar twin and check the deviation of the kernel;");
+        System.err.println("                 with --math fast check one tick from the final state against exact math;");
+        System.err.println("                 in parallel mode also check a sequential twin matches bit for bit");
+        System.err.println("  --plugin JAR   use model.CustomRobotModel from the plugin jar");
+        System.err.println("  --record FILE  record the run to a replay file");
+        System.err.println("  --keyframes N  ticks between keyframes of the recording (default 100)");
+        System.err.println("  --replay FILE  replay a recording, check it against its keyframes and test seeking");
+        System.err.println("  --load FILE    start from a world checkpoint instead of random robots;");
+        System.err.println("                 robots, obstacles and settings except --mode and --kernel come from it");
+        System.err.println("  --save FILE    save a checkpoint of the final world");
+    }
+    /**
+     * Разбирает параметры командной строки.
+     */
+    void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if ("--verify".equals(option)) {
+                verify = true;
+                continue;
+            }
+            if ("--analytic".equals(option)) {
+                analytic = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--robots" -> robots = Integer.parseInt(value);
+                    case "--ticks" -> ticks = Long.parseLong(value);
+                    case "--rate" -> rate = Double.parseDouble(value);
+                    case "--step" -> stepMillis = Integer.parseInt(value);
+                    case "--size" -> worldSize = Double.parseDouble(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--mode" -> stepMode = StepMode.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--kernel" -> kernel = MotionKernelType.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--math" -> math = MathBackend.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--collisions" -> collisions = CollisionMode.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "--obstacles" -> obstacles = Integer.parseInt(value);
+                    case "--plugin" -> plugin = new File(value);
+                    case "--record" -> record = new File(value);
+                    case "--replay" -> replay = new File(value);
+                    case "--load" -> load = new File(value);
+                    case "--save" -> save = new File(value);
+                    case "--keyframes" -> keyframeInterval = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+            }
+        }
+        if (robots <= 0 || ticks <= 0 || stepMillis <= 0 || rate < 0 || worldSize <= 0 || obstacles < 0
+                || keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Numeric options must be positive");
+        }
+        if (analytic && plugin != null) {
+            throw new IllegalArgumentException("--analytic supports only the built-in motion model");
+        }
+        if (analytic && collisions != CollisionMode.NONE) {
+            throw new IllegalArgumentException("--analytic does not model collisions");
+        }
+        if (analytic && record != null) {
+            throw new IllegalArgumentException("--analytic runs cannot be recorded");
+        }
+    }
+    /**
+     * Строит мир со случайными позициями и целями роботов.
+     */
+    RobotWorld createWorld(MotionKernelType kernelType) throws ReflectiveOperationException, IOException {
+        if (load != null) {
+            return loadWorld(kernelType);
+        }
+        RobotWorld world = new RobotWorld(robots);
+        world.setStepMode(stepMode);
+        world.setMotionKernel(kernelType);
+        world.setMathBackend(math);
+        world.setCollisionMode(collisions);
+        Random obstacleRandom = new Random(seed + 1);
+        for (int i = 0; i < obstacles; i++) {
+            world.addObstacle(obstacleRandom.nextDouble() * worldSize, obstacleRandom.nextDouble() * worldSize,
+                    5 + obstacleRandom.nextDouble() * 15);
+        }
+        PluginLoader pluginLoader = plugin != null ? new PluginLoader(plugin) : null;
+        Random random = new Random(seed);
+        for (int i = 0; i < robots; i++) {
+            int index = world.addRobot(
+                    random.nextDouble() * worldSize,
+                    random.nextDouble() * worldSize,
+                    random.nextDouble() * 2 * Math.PI,
+                    random.nextDouble() * worldSize,
+                    random.nextDouble() * worldSize);
+            if (pluginLoader != null) {
+                world.setModel(index, pluginLoader.createModel());
+            }
+        }
+        return world;
+    }
+    /**
+     * Восстанавливает мир из контрольной точки и печатает время загрузки.
+     */
+    private RobotWorld loadWorld(MotionKernelType kernelType) throws IOException {
+        RobotWorld world = new RobotWorld();
+        long started = System.nanoTime();
+        if (!new WorldCheckpoint(load).restore(world)) {
+            throw new IOException("Checkpoint not found: " + load);
+        }
+        long elapsed = System.nanoTime() - started;
+        System.out.printf(Locale.ROOT, "load: file=%s robots=%d obstacles=%d tick=%d in %.1fms%n",
+                load, world.size(), world.getObstacleCount(), world.getTick(), elapsed / 1e6);
+        world.setStepMode(stepMode);
+        world.setMotionKernel(kernelType);
+        robots = world.size();
+        return world;
+    }
+    /**
+     * Сохраняет контрольную точку мира и печатает время сохранения.
+     */
+    private void saveWorld(RobotWorld world) throws IOException {
+        long started = System.nanoTime();
+        new WorldCheckpoint(save).save(world);
+        long elapsed = System.nanoTime() - started;
+        System.out.printf(Locale.ROOT, "save: file=%s bytes=%d in %.1fms%n", save, save.length(), elapsed / 1e6);
+    }
+    /**
+     * Выполняет симуляцию и печатает отчет.
+     */
+    void run() throws ReflectiveOperationException, IOException {
+        if (replay != null) {
+            runReplay();
+            return;
+        }
+        if (analytic) {
+            runAnalytic();
+            return;
+        }
+        RobotWorld world = createWorld(kernel);
+        SimulationRecorder recorder = record != null
+                ? SimulationRecorder.start(world, record, keyframeInterval) : null;
+        TickStatistics statistics = new TickStatistics();
+        long periodNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+
+        long started = System.nanoTime();
+        long deadline = started;
+        long moved = 0;
+        long contacts = 0;
+        for (long tick = 0; tick < ticks; tick++) {
+            if (periodNanos > 0) {
+                deadline += periodNanos;
+            }
+            long tickStart = System.nanoTime();
+            moved += world.step(stepMillis);
+            contacts += world.getLastContacts();
+            long tickEnd = System.nanoTime();
+            statistics.record(tickEnd - tickStart);
+            if (periodNanos > 0) {
+                LockSupport.parkNanos(deadline - tickEnd);
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        printReport(world, statistics, elapsed, moved);
+        if (recorder != null) {
+            recorder.close();
+            System.out.printf(Locale.ROOT, "record: file=%s bytes=%d keyframes=%d (every %d ticks)%n",
+                    record, record.length(), recorder.getKeyframeCount(), keyframeInterval);
+        }
+        if (world.getCollisionMode() != CollisionMode.NONE) {
+            System.out.printf(Locale.ROOT, "collisions: mode=%s obstacles=%d contacts=%d (%.1f per tick)%n",
+                    world.getCollisionMode(), world.getObstacleCount(), contacts, (double) contacts / ticks);
+        }
+        if (save != null) {
+            saveWorld(world);
+        }
+        if (verify && !(verifyAgainstScalar(world) & verifyAgainstSequential(world))) {
+            System.exit(3);
+        }
+    }
+    /**
+     * Воспроизводит запись до конца, сверяя состояние с опорными кадрами, затем проверяет
+     * переход к такту в середине записи: состояние должно совпасть с последовательным
+     * воспроизведением бит в бит.
+     */
+    private void runReplay() throws IOException {
+        try (SimulationReplayer replayer = new SimulationReplayer(replay)) {
+            RobotWorld world = replayer.getWorld();
+            long middle = (replayer.getFirstTick() + replayer.getLastTick()) / 2;
+            double expected = 0;
+            long started = System.nanoTime();
+            while (replayer.next()) {
+                if (replayer.getTick() == middle) {
+                    expected = checksum(world);
+                }
+            }
+            long elapsed = System.nanoTime() - started;
+            long played = replayer.getLastTick() - replayer.getFirstTick();
+            System.out.printf(Locale.ROOT, "replay: robots=%d mode=%s ticks=%d..%d keyframes=%d elapsed=%.3fs (%.1f ticks/s)%n",
+                    world.size(), world.getStepMode(), replayer.getFirstTick(), replayer.getLastTick(), replayer.getKeyframeCount(),
+                    elapsed / 1e9, played / (elapsed / 1e9));
+            long seekStarted = System.nanoTime();
+            replayer.seek(middle);
+            long seekElapsed = System.nanoTime() - seekStarted;
+            boolean seekMatches = checksum(world) == expected;
+            boolean passed = replayer.getDivergedKeyframes() == 0 && seekMatches;
+            System.out.printf(Locale.ROOT, "replay: diverged keyframes=%d seek to %d in %.1fms %s, %s%n",
+                    replayer.getDivergedKeyframes(), middle, seekElapsed / 1e6,
+                    seekMatches ? "matches" : "DIFFERS", passed ? "OK" : "FAILED");
+            if (!passed) {
+                System.exit(3);
+            }
+        }
+    }
+
+    private static double checksum(RobotWorld world) {
+        double checksum = 0;
+        for (int i = 0; i < world.size(); i++) {
+            checksum += world.getX(i) + world.getY(i) + world.getDirection(i);
+        }
+        return checksum;
+    }
+    /**
+     * Переносит каждого робота в момент ticks * step по аналитической траектории
+     * и печатает отчет. Длительности тактов в этом режиме не измеряются.
+     */
+    private void runAnalytic() throws ReflectiveOperationException, IOException {
+        RobotWorld world = createWorld(kernel);
+        double time = (double) ticks * stepMillis;
+        long started = System.nanoTime();
+        for (int i = 0; i < world.size(); i++) {
+            world.fastForward(i, time, stepMillis);
+        }
+        long elapsed = System.nanoTime() - started;
+        printReport(world, new TickStatistics(), elapsed, 0);
+        if (save != null) {
+            saveWorld(world);
+        }
+        if (verify && !verifyAgainstTicks(world)) {
+            System.exit(3);
+        }
+    }
+    /**
+     * Повторяет прогон потактово и сравнивает позиции с аналитическим расчетом.
+     * Расхождение должно укладываться в Trajectory.POSITION_TOLERANCE_STEPS длин шага.
+     */
+    private boolean verifyAgainstTicks(RobotWorld world) throws ReflectiveOperationException, IOException {
+        RobotWorld reference = createWorld(MotionKernelType.SCALAR);
+        reference.setMathBackend(MathBackend.EXACT);
+        for (long tick = 0; tick < ticks; tick++) {
+            reference.step(stepMillis);
+        }
+        double deviation = 0;
+        double maxStep = 0;
+        for (int i = 0; i < world.size(); i++) {
+            deviation = Math.max(deviation, Math.hypot(world.getX(i) - reference.getX(i),
+                    world.getY(i) - reference.getY(i)));
+            maxStep = Math.max(maxStep, world.getMaxVelocity(i) * stepMillis);
+        }
+        double tolerance = Trajectory.POSITION_TOLERANCE_STEPS * maxStep;
+        boolean passed = deviation <= tolerance;
+        System.out.printf(Locale.ROOT, "verify: analytic max position deviation from ticks=%.3e tolerance=%.3e %s%n",
+                deviation, tolerance, passed ? "OK" : "FAILED");
+        return passed;
+    }
+    /**
+     * Повторяет прогон со скалярной реализацией такта и точной тригонометрией и сравнивает
+     * итоговое состояние. Расхождение векторной реализации должно укладываться
+     * в VECTOR_TOLERANCE за каждый такт. С FAST траектории со временем расходятся,
+     * поэтому для нее проверяется один такт (verifyFastStep).
+     */
+    private boolean verifyAgainstScalar(RobotWorld world) throws ReflectiveOperationException, IOException {
+        if (world.getMotionKernel() == MotionKernelType.SCALAR && world.getMathBackend() == MathBackend.FAST) {
+            return verifyFastStep(world);
+        }
+        RobotWorld reference = createWorld(MotionKernelType.SCALAR);
+        reference.setMathBackend(MathBackend.EXACT);
+        for (long tick = 0; tick < ticks; tick++) {
+            reference.step(stepMillis);
+        }
+        double deviation = 0;
+        for (int i = 0; i < world.size(); i++) {
+            deviation = Math.max(deviation, Math.abs(world.getX(i) - reference.getX(i)));
+            deviation = Math.max(deviation, Math.abs(world.getY(i) - reference.getY(i)));
+            double turn = Math.abs(world.getDirection(i) - reference.getDirection(i));
+            deviation = Math.max(deviation, Math.min(turn, 2 * Math.PI - turn));
+        }
+        double tolerance = world.getMotionKernel() == MotionKernelType.VECTOR
+                ? MotionKernelType.VECTOR_TOLERANCE * ticks : 0;
+        boolean passed = deviation <= tolerance;
+        System.out.printf(Locale.ROOT, "verify: kernel=%s math=%s max deviation from exact scalar=%.3e tolerance=%.3e %s%n",
+                world.getMotionKernel(), world.getMathBackend(), deviation, tolerance, passed ? "OK" : "FAILED");
+        return passed;
+    }
+    /**
+     * Проверяет FAST на одном такте встроенной модели без столкновений: из итогового
+     * состояния прогона делается такт с точной и с приближенной тригонометрией.
+     * Если сторона поворота совпала, направление совпадает бит в бит, а каждая
+     * координата отличается не более чем на 2|v/ω| * FAST_SIN_ERROR (v * dt * FAST_SIN_ERROR
+     * при ω = 0). Другая сторона поворота допустима, только если цель впереди или позади
+     * в пределах FAST_ATAN2_ERROR; тогда направление отличается на 2ω * dt,
+     * а координаты еще не более чем на v * ω * dt².
+     */
+    private boolean verifyFastStep(RobotWorld world) {
+        WorldState state = new WorldState();
+        world.captureState(state);
+        RobotWorld exact = createStepTwin(state, MathBackend.EXACT);
+        RobotWorld fast = createStepTwin(state, MathBackend.FAST);
+        exact.step(stepMillis);
+        fast.step(stepMillis);
+        int failed = 0;
+        int flipped = 0;
+        double worst = 0;
+        for (int i = 0; i < state.size(); i++) {
+            double velocity = state.getMaxVelocities()[i];
+            double angularVelocity = state.getMaxAngularVelocities()[i];
+            double bound = (angularVelocity != 0 ? 2 * velocity / angularVelocity : velocity * stepMillis)
+                    * MathBackend.FAST_SIN_ERROR + FAST_STEP_SLACK;
+            boolean ok;
+            if (Double.doubleToLongBits(exact.getDirection(i)) == Double.doubleToLongBits(fast.getDirection(i))) {
+                ok = true;
+            } else {
+                flipped++;
+                double turn = Math.abs(exact.getDirection(i) - fast.getDirection(i));
+                turn = Math.min(turn, 2 * Math.PI - turn);
+                double angleToTarget = Math.atan2(state.getTargetYs()[i] - state.getYs()[i],
+                        state.getTargetXs()[i] - state.getXs()[i]);
+                double offset = Math.abs(Math.IEEEremainder(angleToTarget - state.getDirections()[i], Math.PI));
+                ok = Math.abs(turn - 2 * angularVelocity * stepMillis) <= FAST_STEP_SLACK
+                        && offset <= MathBackend.FAST_ATAN2_ERROR + FAST_STEP_SLACK;
+                bound += velocity * angularVelocity * stepMillis * stepMillis;
+            }
+            double deviation = Math.max(Math.abs(exact.getX(i) - fast.getX(i)), Math.abs(exact.getY(i) - fast.getY(i)));
+            worst = Math.max(worst, deviation / bound);
+            if (!ok || deviation > bound) {
+                failed++;
+            }
+        }
+        boolean passed = failed == 0;
+        System.out.printf(Locale.ROOT,
+                "verify: math=FAST one tick from the final state: turn side differs=%d max deviation/bound=%.3f robots out of bound=%d %s%n",
+                flipped, worst, failed, passed ? "OK" : "FAILED");
+        return passed;
+    }
+
+    private RobotWorld createStepTwin(WorldState state, MathBackend math) {
+        RobotWorld twin = new RobotWorld();
+        twin.restoreState(state);
+        twin.setCollisionMode(CollisionMode.NONE);
+        twin.setStepMode(StepMode.SEQUENTIAL);
+        twin.setMotionKernel(MotionKernelType.SCALAR);
+        twin.setMathBackend(math);
+        return twin;
+    }
+    /**
+     * В режиме PARALLEL повторяет прогон последовательно с той же реализацией такта
+     * и тригонометрией: итоговое состояние должно совпасть бит в бит.
+     * В последовательном режиме проверка не нужна и считается пройденной.
+     */
+    private boolean verifyAgainstSequential(RobotWorld world) throws ReflectiveOperationException, IOException {
+        if (stepMode != StepMode.PARALLEL) {
+            return true;
+        }
+        RobotWorld reference = createWorld(world.getMotionKernel());
+        reference.setStepMode(StepMode.SEQUENTIAL);
+        reference.setMathBackend(world.getMathBackend());
+        for (long tick = 0; tick < ticks; tick++) {
+            reference.step(stepMillis);
+        }
+        int differing = 0;
+        for (int i = 0; i < world.size(); i++) {
+            if (Double.doubleToLongBits(world.getX(i)) != Double.doubleToLongBits(reference.getX(i))
+                    || Double.doubleToLongBits(world.getY(i)) != Double.doubleToLongBits(reference.getY(i))
+                    || Double.doubleToLongBits(world.getDirection(i)) != Double.doubleToLongBits(reference.getDirection(i))) {
+                differing++;
+            }
+        }
+        boolean passed = differing == 0;
+        System.out.printf(Locale.ROOT, "verify: kernel=%s parallel vs sequential robots differing=%d %s%n",
+                world.getMotionKernel(), differing, passed ? "OK" : "FAILED");
+        return passed;
+    }
+    /**
+     * Печатает пропускную способность, перцентили длительности такта и итоговое состояние.
+     */
+    private void printReport(RobotWorld world, TickStatistics statistics, long elapsedNanos, long moved) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "robots=%d ticks=%d mode=%s kernel=%s math=%s rate=%s step=%dms plugin=%s%n",
+                robots, ticks, analytic ? "analytic" : stepMode, world.getMotionKernel(), world.getMathBackend(),
+                rate > 0 ? rate + "Hz" : "max", stepMillis, plugin != null ? plugin.getName() : "none");
+        System.out.printf(Locale.ROOT, "elapsed=%.3fs throughput=%.1f ticks/s %.3e robot-steps/s%n",
+                seconds, ticks / seconds, moved / seconds);
+        System.out.printf(Locale.ROOT,
+                "tick latency us: min=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f mean=%.1f%n",
+                statistics.min() / 1e3, statistics.percentile(50) / 1e3,
+                statistics.percentile(90) / 1e3, statistics.percentile(99) / 1e3,
+                statistics.percentile(99.9) / 1e3, statistics.max() / 1e3, statistics.mean() / 1e3);
+
+        int arrived = 0;
+        double checksum = 0;
+        for (int i = 0; i < world.size(); i++) {
+            if (world.isArrived(i)) {
+                arrived++;
+            }
+            checksum += world.getX(i) + world.getY(i) + world.getDirection(i);
+        }
+        System.out.printf(Locale.ROOT, "final: arrived=%d/%d checksum=%.9f%n", arrived, world.size(), checksum);
+        for (int i = 0; i < Math.min(world.size(), 3); i++) {
+            System.out.printf(Locale.ROOT, "robot[%d]: x=%.6f y=%.6f direction=%.6f target=(%.1f, %.1f)%n",
+                    i, world.getX(i), world.getY(i), world.getDirection(i),
+                    world.getTargetX(i), world.getTargetY(i));
+        }
+    }
+}
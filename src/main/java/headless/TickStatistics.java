@@ -0,0 +1,38 @@
+package headless;
+
+import metrics.Histogram;
+/**
+ * Накопитель длительностей тактов для расчета перцентилей.
+ * Измерения записываются в гистограмму с логарифмическими корзинами, поэтому память
+ * не зависит от числа тактов, а запись не создает объектов. Перцентили определяются
+ * с относительной погрешностью гистограммы; минимум, максимум и среднее точные.
+ */
+class TickStatistics {
+    private final Histogram histogram = new Histogram("headless.tick");
+    private long min = Long.MAX_VALUE;
+    /**
+     * Добавляет длительность одного такта в наносекундах.
+     */
+    void record(long nanos) {
+        histogram.record(nanos);
+        min = Math.min(min, nanos);
+    }
+    /**
+     * Возвращает значение указанного перцентиля (0..100): верхнюю границу корзины гистограммы.
+     */
+    long percentile(double percent) {
+        return histogram.getPercentile(percent);
+    }
+
+    long min() {
+        return histogram.getCount() == 0 ? 0 : min;
+    }
+
+    long max() {
+        return histogram.getMax();
+    }
+
+    double mean() {
+        return histogram.getMean();
+    }
+}
@@ -1,5 +1,7 @@
 package localization;
 
+import metrics.LocaleChangeEvent;
+
 import java.util.*;
 import java.util.List;
 /**
@@ -49,9 +51,16 @@ public class LocaleManager {
      * уведомляет всех зарегистрированных слушателей.
      */
     public void setLocale(String language) {
+        LocaleChangeEvent event = new LocaleChangeEvent();
+        event.begin();
         currentLocale = new Locale(language);
         bundle = ResourceBundle.getBundle("messages", currentLocale);
         notifyListeners();
+        if (event.shouldCommit()) {
+            event.language = language;
+            event.listeners = listeners.size();
+            event.commit();
+        }
     }
     /**
      * Возвращает локализованную строку по ключу.
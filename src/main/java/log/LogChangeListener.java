@@ -8,6 +8,8 @@ public interface LogChangeListener
 {
     /**
      * Метод вызывается при изменении содержимого журнала.
+     * Вызов приходит из потока уведомлений журнала, а не из потока, добавившего сообщение;
+     * одно уведомление может означать сразу несколько новых сообщений.
      */
     public void onLogChanged(); 
 }
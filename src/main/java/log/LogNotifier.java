@@ -0,0 +1,76 @@
+package log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * Фоновый поток, который уведомляет слушателей журнала вместо добавляющего потока.
+ * Добавляющий поток только выставляет флаг и, если поток уведомлений спит, будит его.
+ * Поток вызывает dispatch не чаще раза за интервал, поэтому все сообщения,
+ * добавленные за интервал, дают одно уведомление.
+ */
+final class LogNotifier {
+    private final Runnable dispatch;
+    private final long intervalNanos;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile Thread thread;
+
+    LogNotifier(Runnable dispatch, long intervalMillis) {
+        this.dispatch = dispatch;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+    /**
+     * Запускает поток уведомлений, если он еще не запущен.
+     */
+    void start() {
+        if (thread != null) {
+            return;
+        }
+        Thread notifierThread = new Thread(this::run, "log-notifier");
+        notifierThread.setDaemon(true);
+        thread = notifierThread;
+        notifierThread.start();
+    }
+    /**
+     * Останавливает поток уведомлений; начатое уведомление завершается.
+     */
+    void stop() {
+        Thread notifierThread = thread;
+        thread = null;
+        if (notifierThread != null) {
+            LockSupport.unpark(notifierThread);
+        }
+    }
+    /**
+     * Запрашивает уведомление. Запросы до начала уведомления объединяются в одно.
+     */
+    void request() {
+        if (!pending.get() && pending.compareAndSet(false, true)) {
+            Thread notifierThread = thread;
+            if (notifierThread != null) {
+                LockSupport.unpark(notifierThread);
+            }
+        }
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        while (thread == self) {
+            if (!pending.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+            long deadline = System.nanoTime() + intervalNanos;
+            try {
+                dispatch.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            long now = System.nanoTime();
+            while (now < deadline && thread == self) {
+                LockSupport.parkNanos(this, deadline - now);
+                now = System.nanoTime();
+            }
+        }
+    }
+}
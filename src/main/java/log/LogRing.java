@@ -0,0 +1,216 @@
+package log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+/**
+ * Кольцевой буфер фиксированного размера без блокировок для нескольких писателей.
+ * Каждый элемент получает порядковый номер (sequence): писатель занимает номер
+ * атомарным увеличением счетчика и кладет в ячейку номер mod размер массива пару
+ * (номер, элемент) через compareAndSet, только если в ячейке лежит пара с меньшим
+ * номером. Поэтому добавление никогда не ждет других потоков, а отставший писатель
+ * не затирает более новый элемент. Размер массива - степень двойки не меньше емкости;
+ * видны последние capacity номеров.
+ * <p>
+ * Читатели получают View - срез номеров [from, to), зафиксированный в момент создания.
+ * Элемент по номеру возвращается, только если в ячейке лежит пара именно с этим номером,
+ * так что читатель не увидит наполовину записанный или подмененный элемент;
+ * вытесненные за время чтения элементы пропускаются. Номер конца среза служит
+ * курсором: view(cursor) возвращает только элементы, добавленные после него.
+ */
+public final class LogRing<T> implements Iterable<T> {
+    /**
+     * Сколько раз читатель ждет писателя, который занял номер, но еще не положил элемент
+     */
+    private static final int PUBLISH_SPINS = 64;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final int capacity;
+    /**
+     * Номер, который получит следующий добавленный элемент
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    public LogRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        int length = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(length);
+        this.mask = length - 1;
+        this.capacity = capacity;
+    }
+    /**
+     * Добавляет элемент; самый старый элемент вытесняется, если буфер заполнен.
+     *
+     * @return Номер добавленного элемента.
+     */
+    public long add(T item) {
+        long sequence = tail.getAndIncrement();
+        Slot<T> slot = new Slot<>(sequence, item);
+        int index = (int) (sequence & mask);
+        Slot<T> current = slots.get(index);
+        while ((current == null || current.sequence < sequence) && !slots.compareAndSet(index, current, slot)) {
+            current = slots.get(index);
+        }
+        return sequence;
+    }
+    /**
+     * Возвращает элемент с указанным номером или null, если он уже вытеснен
+     * или еще не добавлен.
+     */
+    public T get(long sequence) {
+        long end = tail.get();
+        if (sequence < 0 || sequence >= end || sequence < end - capacity) {
+            return null;
+        }
+        int index = (int) (sequence & mask);
+        for (int spin = 0; ; spin++) {
+            Slot<T> slot = slots.get(index);
+            if (slot != null && slot.sequence == sequence) {
+                return slot.item;
+            }
+            if ((slot != null && slot.sequence > sequence) || spin >= PUBLISH_SPINS) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+    }
+    /**
+     * Номер, который получит следующий элемент; равен числу добавленных элементов.
+     */
+    public long getTailSequence() {
+        return tail.get();
+    }
+    /**
+     * Номер самого старого элемента, который еще может быть в буфере.
+     */
+    public long getHeadSequence() {
+        return Math.max(tail.get() - capacity, 0);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+    /**
+     * Возвращает текущее количество элементов в буфере.
+     */
+    public int size() {
+        return (int) Math.min(tail.get(), capacity);
+    }
+    /**
+     * Возвращает срез всех элементов буфера на текущий момент.
+     */
+    public View<T> view() {
+        return view(0);
+    }
+    /**
+     * Возвращает срез элементов с номерами не меньше fromSequence на текущий момент.
+     */
+    public View<T> view(long fromSequence) {
+        long end = tail.get();
+        return new View<>(this, Math.min(Math.max(fromSequence, Math.max(end - capacity, 0)), end), end);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return view().iterator();
+    }
+
+    private static final class Slot<T> {
+        final long sequence;
+        final T item;
+
+        Slot(long sequence, T item) {
+            this.sequence = sequence;
+            this.item = item;
+        }
+    }
+    /**
+     * Срез номеров [from, to) буфера. Сам срез неизменяем; элементы читаются из буфера
+     * при обращении, и вытесненные к этому моменту пропускаются при обходе.
+     */
+    public static final class View<T> implements Iterable<T> {
+        private final LogRing<T> ring;
+        private final long from;
+        private final long to;
+
+        private View(LogRing<T> ring, long from, long to) {
+            this.ring = ring;
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getFromSequence() {
+            return from;
+        }
+        /**
+         * Номер после последнего элемента среза; курсор для следующего view.
+         */
+        public long getToSequence() {
+            return to;
+        }
+
+        public int size() {
+            return (int) (to - from);
+        }
+        /**
+         * Возвращает элемент с позицией index в срезе или null, если он вытеснен.
+         */
+        public T get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return ring.get(from + index);
+        }
+        /**
+         * Копирует до count доступных элементов, начиная с позиции startFrom.
+         */
+        public List<T> range(int startFrom, int count) {
+            List<T> entries = new ArrayList<>();
+            for (int i = Math.max(startFrom, 0); i < size() && i - startFrom < count; i++) {
+                T item = ring.get(from + i);
+                if (item != null) {
+                    entries.add(item);
+                }
+            }
+            return entries;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private long sequence = from;
+                private T next = advance();
+
+                private T advance() {
+                    while (sequence < to) {
+                        T item = ring.get(sequence++);
+                        if (item != null) {
+                            return item;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public T next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    T item = next;
+                    next = advance();
+                    return item;
+                }
+            };
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package log;
 
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.LogAppendEvent;
+import metrics.LogDispatchEvent;
+import metrics.MetricsRegistry;
+
 import java.util.Collections;
 import java.util.Set;
 import java.util.WeakHashMap;
 /**
  * Источник сообщений для окна лога с поддержкой подписки на изменения.
- * Хранит сообщения в кольцевом буфере фиксированного размера и уведомляет
- * зарегистрированных слушателей о новых сообщениях.
+ * Хранит сообщения в кольцевом буфере фиксированного размера без блокировок (LogRing)
+ * и уведомляет зарегистрированных слушателей о новых сообщениях.
+ * Слушатели вызываются из фонового потока уведомлений не чаще раза в
+ * NOTIFY_INTERVAL_MILLIS, поэтому пачка сообщений дает одно уведомление,
+ * а добавляющий поток только кладет сообщение в буфер.
+ * Число добавленных сообщений, число уведомлений и время обхода слушателей
+ * попадают в метрики log.appends, log.notifications и log.fanout.
  */
 public class LogWindowSource {
-    private final CircularBuffer<LogEntry> m_messages;
+    private static final Counter APPENDS = MetricsRegistry.getInstance().counter("log.appends");
+    private static final Counter NOTIFICATIONS = MetricsRegistry.getInstance().counter("log.notifications");
+    private static final Histogram FANOUT = MetricsRegistry.getInstance().histogram("log.fanout");
+    /**
+     * Наименьший интервал между уведомлениями слушателей - примерно один кадр
+     */
+    public static final long NOTIFY_INTERVAL_MILLIS = 16;
+    private final LogRing<LogEntry> m_messages;
     private final Set<LogChangeListener> m_listeners;
     private volatile LogChangeListener[] m_activeListeners;
+    private final LogNotifier m_notifier;
+    /**
+     * Номер первого сообщения, о котором слушатели еще не уведомлены
+     */
+    private long m_notifiedSequence;
     /**
      * Создает новый источник лога с указанной емкостью.
      */
     public LogWindowSource(int iQueueLength) {
-        m_messages = new CircularBuffer<>(iQueueLength);
+        m_messages = new LogRing<>(iQueueLength);
         m_listeners = Collections.newSetFromMap(new WeakHashMap<>());
+        m_notifier = new LogNotifier(this::notifyListeners, NOTIFY_INTERVAL_MILLIS);
     }
     /**
      * Регистрирует слушателя изменений лога.
@@ -26,6 +50,7 @@ public class LogWindowSource {
         synchronized (m_listeners) {
             m_listeners.add(listener);
             m_activeListeners = null;
+            m_notifier.start();
         }
     }
     /**
@@ -35,27 +60,56 @@ public class LogWindowSource {
         synchronized (m_listeners) {
             m_listeners.remove(listener);
             m_activeListeners = null;
+            if (m_listeners.isEmpty()) {
+                m_notifier.stop();
+            }
         }
     }
     /**
-     * Добавляет новое сообщение в лог и уведомляет слушателей.
+     * Добавляет новое сообщение в лог и запрашивает уведомление слушателей.
      */
     public void append(LogLevel logLevel, String message) {
-        LogEntry entry = new LogEntry(logLevel, message);
-        m_messages.add(entry);
-
+        LogAppendEvent event = new LogAppendEvent();
+        event.begin();
+        m_messages.add(new LogEntry(logLevel, message));
+        APPENDS.increment();
+        m_notifier.request();
+        if (event.shouldCommit()) {
+            event.level = logLevel.name();
+            event.length = message == null ? 0 : message.length();
+            event.commit();
+        }
+    }
+    /**
+     * Уведомляет слушателей; вызывается только из потока уведомлений.
+     * Если все слушатели были собраны сборщиком мусора, поток останавливается.
+     */
+    private void notifyListeners() {
+        LogDispatchEvent event = new LogDispatchEvent();
+        event.begin();
+        long sequence = m_messages.getTailSequence();
         LogChangeListener[] activeListeners = m_activeListeners;
         if (activeListeners == null) {
             synchronized (m_listeners) {
-                if (m_activeListeners == null) {
-                    activeListeners = m_listeners.toArray(new LogChangeListener[0]);
-                    m_activeListeners = activeListeners;
+                activeListeners = m_listeners.toArray(new LogChangeListener[0]);
+                m_activeListeners = activeListeners;
+                if (activeListeners.length == 0) {
+                    m_notifier.stop();
                 }
             }
         }
-        for (LogChangeListener listener : m_activeListeners) {
+        long start = System.nanoTime();
+        for (LogChangeListener listener : activeListeners) {
             listener.onLogChanged();
         }
+        FANOUT.recordSince(start);
+        NOTIFICATIONS.increment();
+        if (event.shouldCommit()) {
+            event.listeners = activeListeners.length;
+            event.messages = sequence - m_notifiedSequence;
+            event.commit();
+        }
+        m_notifiedSequence = sequence;
     }
     /**
      * Возвращает текущее количество сообщений в логе.
@@ -67,12 +121,25 @@ public class LogWindowSource {
      * Возвращает диапазон сообщений из лога.
      */
     public Iterable<LogEntry> range(int startFrom, int count) {
-        return m_messages.range(startFrom, count);
+        return m_messages.view().range(startFrom, count);
     }
     /**
      * Возвращает все сообщения в логе.
      */
     public Iterable<LogEntry> all() {
-        return m_messages;
+        return m_messages.view();
+    }
+    /**
+     * Возвращает сообщение с указанным номером или null, если оно уже вытеснено.
+     */
+    public LogEntry get(long sequence) {
+        return m_messages.get(sequence);
+    }
+    /**
+     * Возвращает срез сообщений с номерами не меньше fromSequence;
+     * номер конца среза можно передать сюда при следующем чтении.
+     */
+    public LogRing.View<LogEntry> since(long fromSequence) {
+        return m_messages.view(fromSequence);
     }
 }
\ No newline at end of file
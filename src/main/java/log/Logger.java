@@ -5,12 +5,18 @@ package log;
 public final class Logger
 {
     /**
-     * Статический блок инициализирует источник журнала
-     * по умолчанию с максимальной длиной очереди 100 записей.
+     * Системное свойство, задающее емкость журнала по умолчанию
+     */
+    public static final String CAPACITY_PROPERTY = "robots.log.capacity";
+    public static final int DEFAULT_CAPACITY = 5;
+    /**
+     * Статический блок инициализирует источник журнала по умолчанию
+     * с емкостью из свойства robots.log.capacity или DEFAULT_CAPACITY записей.
      */
     private static final LogWindowSource defaultLogSource;
     static {
-        defaultLogSource = new LogWindowSource(5);
+        int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+        defaultLogSource = new LogWindowSource(capacity > 0 ? capacity : DEFAULT_CAPACITY);
     }
     /**
      * Приватный конструктор предотвращает создание экземпляров этого класса,
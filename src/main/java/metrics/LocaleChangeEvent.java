@@ -0,0 +1,19 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: LocaleManager.setLocale вместе с обновлением интерфейса слушателями.
+ */
+@Name("robots.LocaleChange")
+@Label("Locale Change")
+@Category({"Robots", "UI"})
+@Description("LocaleManager.setLocale including listener updates")
+public final class LocaleChangeEvent extends jdk.jfr.Event {
+    @Label("Language")
+    public String language;
+    @Label("Listeners")
+    public int listeners;
+}
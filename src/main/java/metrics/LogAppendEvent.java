@@ -0,0 +1,19 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: LogWindowSource.append; слушатели уведомляются отдельно (LogDispatchEvent).
+ */
+@Name("robots.LogAppend")
+@Label("Log Append")
+@Category({"Robots", "Logging"})
+@Description("LogWindowSource.append, excluding asynchronous listener dispatch")
+public final class LogAppendEvent extends jdk.jfr.Event {
+    @Label("Level")
+    public String level;
+    @Label("Message Length")
+    public int length;
+}
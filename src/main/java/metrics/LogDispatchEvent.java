@@ -0,0 +1,20 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: одно уведомление слушателей журнала из потока уведомлений
+ * за все сообщения, добавленные с прошлого уведомления.
+ */
+@Name("robots.LogDispatch")
+@Label("Log Dispatch")
+@Category({"Robots", "Logging"})
+@Description("Coalesced notification of log listeners for all messages appended since the previous one")
+public final class LogDispatchEvent extends jdk.jfr.Event {
+    @Label("Listeners")
+    public int listeners;
+    @Label("Messages")
+    public long messages;
+}
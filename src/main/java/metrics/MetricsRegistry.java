@@ -0,0 +1,79 @@
+package metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+/**
+ * Реестр метрик приложения: именованные счетчики и гистограммы длительностей.
+ * Метрика создается при первом обращении по имени; вызывающий код сохраняет
+ * ее в поле и дальше обращается к ней напрямую, без поиска по имени.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    private final ConcurrentSkipListMap<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final long startNanos = System.nanoTime();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, Histogram::new);
+    }
+    /**
+     * Возвращает счетчики, упорядоченные по имени.
+     */
+    public List<Counter> getCounters() {
+        return new ArrayList<>(counters.values());
+    }
+    /**
+     * Возвращает гистограммы, упорядоченные по имени.
+     */
+    public List<Histogram> getHistograms() {
+        return new ArrayList<>(histograms.values());
+    }
+    /**
+     * Время с создания реестра в секундах.
+     */
+    public double getUptimeSeconds() {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+    /**
+     * Записывает значения всех метрик в текстовый файл: для счетчиков - значение
+     * и среднюю частоту с запуска, для гистограмм - число значений и длительности в мс.
+     */
+    public void dump(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            double uptime = getUptimeSeconds();
+            out.printf(Locale.ROOT, "uptime %.1f s%n", uptime);
+            for (Counter counter : counters.values()) {
+                out.printf(Locale.ROOT, "%-24s count=%d rate=%.1f/s%n",
+                        counter.getName(), counter.get(), counter.get() / uptime);
+            }
+            for (Histogram histogram : histograms.values()) {
+                out.printf(Locale.ROOT, "%-24s count=%d mean=%.3f p50=%.3f p99=%.3f max=%.3f ms%n",
+                        histogram.getName(), histogram.getCount(), millis(histogram.getMean()),
+                        millis(histogram.getPercentile(50)), millis(histogram.getPercentile(99)),
+                        millis(histogram.getMax()));
+            }
+            if (out.checkError()) {
+                throw new IOException("Failed to write metrics to " + file);
+            }
+        }
+    }
+
+    public static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,22 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: GameVisualizer.paintComponent в потоке обработки событий.
+ */
+@Name("robots.Paint")
+@Label("Paint")
+@Category({"Robots", "Rendering"})
+@Description("GameVisualizer.paintComponent")
+public final class PaintEvent extends jdk.jfr.Event {
+    @Label("Active")
+    @Description("Whether a frame rendered by the render thread was copied")
+    public boolean active;
+    @Label("Width")
+    public int width;
+    @Label("Height")
+    public int height;
+}
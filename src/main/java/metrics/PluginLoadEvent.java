@@ -0,0 +1,19 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: загрузка визуализатора и модели робота из jar-файла.
+ */
+@Name("robots.PluginLoad")
+@Label("Plugin Load")
+@Category({"Robots", "UI"})
+@Description("Loading a robot visualizer and model from a jar")
+public final class PluginLoadEvent extends jdk.jfr.Event {
+    @Label("Jar")
+    public String jar;
+    @Label("Success")
+    public boolean success;
+}
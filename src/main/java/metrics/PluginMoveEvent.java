@@ -0,0 +1,23 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+/**
+ * Событие JFR: вызов GameModel.moveRobot подключаемой модели робота.
+ * Вызов происходит для каждого такого робота на каждом такте, поэтому по умолчанию
+ * записываются только вызовы дольше 1 мс; порог меняется настройками записи.
+ */
+@Name("robots.PluginMove")
+@Label("Plugin Move")
+@Category({"Robots", "Simulation"})
+@Description("GameModel.moveRobot call into a plugin model")
+@Threshold("1 ms")
+public final class PluginMoveEvent extends jdk.jfr.Event {
+    @Label("Robot Index")
+    public int index;
+    @Label("Model Class")
+    public Class<?> modelClass;
+}
@@ -0,0 +1,20 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: рисование сцены поля - в потоке отрисовки или в paintComponent.
+ */
+@Name("robots.Scene")
+@Label("Scene")
+@Category({"Robots", "Rendering"})
+@Description("Drawing of the game field scene")
+public final class SceneEvent extends jdk.jfr.Event {
+    @Label("Robots")
+    @Description("Number of visible robots drawn")
+    public int robots;
+    @Label("Zoom")
+    public double zoom;
+}
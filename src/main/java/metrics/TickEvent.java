@@ -0,0 +1,29 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+/**
+ * Событие JFR: такт мира (RobotWorld.step) или шаг одного робота (RobotWorld.stepRobot,
+ * через него работает RobotModel.updateModel).
+ */
+@Name("robots.Tick")
+@Label("Tick")
+@Category({"Robots", "Simulation"})
+@Description("World step or single robot step")
+public final class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    public long tick;
+    @Label("Robots")
+    @Description("Number of robots advanced")
+    public int robots;
+    @Label("Moved")
+    @Description("Number of robots that moved")
+    public int moved;
+    @Label("Robot Index")
+    @Description("Index of the stepped robot, -1 for a whole world step")
+    public int index;
+    @Label("Parallel")
+    public boolean parallel;
+}
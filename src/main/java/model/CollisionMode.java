@@ -0,0 +1,37 @@
+package model;
+/**
+ * Режим обработки столкновений роботов мира.
+ */
+public enum CollisionMode {
+    /**
+     * Роботы проходят сквозь препятствия и друг сквозь друга.
+     */
+    NONE,
+    /**
+     * Роботы выталкиваются из статических препятствий.
+     */
+    OBSTACLES,
+    /**
+     * Роботы выталкиваются из препятствий и расталкивают друг друга.
+     */
+    ALL;
+    /**
+     * Системное свойство, задающее режим по умолчанию
+     */
+    public static final String PROPERTY = "robots.collisions";
+    /**
+     * Возвращает режим, указанный в системном свойстве robots.collisions,
+     * или NONE, если свойство не задано или содержит неизвестное значение.
+     */
+    public static CollisionMode fromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (CollisionMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,243 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * Обработка столкновений роботов мира: роботы - круги радиуса robotRadius,
+ * препятствия - неподвижные круги. Пересекающиеся роботы расталкиваются поровну
+ * вдоль линии центров, а робот, заехавший в препятствие, выталкивается на его границу.
+ * Робот, уже прибывший к цели, не сдвигается движущимся: тот объезжает его сам,
+ * иначе проезжающие роботы сбивали бы стоящих с их целей.
+ * <p>
+ * Пары кандидатов отбираются через пространственные сетки роботов и препятствий
+ * (широкая фаза), поэтому такт стоит O(n) при ограниченной плотности роботов, а не O(n²).
+ * Пары разбираются по порядку индексов за один проход, а кандидаты каждого робота
+ * упорядочиваются по индексу, так что результат детерминирован и не зависит от того,
+ * в каком порядке роботы попадали в ячейки сетки (например, после восстановления мира).
+ * <p>
+ * Не потокобезопасен; RobotWorld вызывает его под своей блокировкой записи.
+ */
+final class CollisionResolver {
+    /**
+     * Радиус робота по умолчанию
+     */
+    static final double DEFAULT_ROBOT_RADIUS = 5;
+    private CollisionMode mode = CollisionMode.fromProperty();
+    private double robotRadius = DEFAULT_ROBOT_RADIUS;
+    private double[] obstacleX = new double[4];
+    private double[] obstacleY = new double[4];
+    private double[] obstacleRadius = new double[4];
+    private int obstacleCount = 0;
+    private double maxObstacleRadius = 0;
+    private SpatialGrid obstacleGrid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, 4);
+    /**
+     * Переиспользуемый буфер кандидатов широкой фазы
+     */
+    private int[] candidates = new int[64];
+    private int contacts = 0;
+
+    CollisionMode getMode() {
+        return mode;
+    }
+
+    void setMode(CollisionMode mode) {
+        this.mode = mode;
+    }
+
+    double getRobotRadius() {
+        return robotRadius;
+    }
+
+    void setRobotRadius(double robotRadius) {
+        if (!(robotRadius >= 0) || Double.isInfinite(robotRadius)) {
+            throw new IllegalArgumentException("Invalid robot radius " + robotRadius);
+        }
+        this.robotRadius = robotRadius;
+    }
+    /**
+     * Добавляет неподвижное круглое препятствие.
+     *
+     * @return Индекс препятствия.
+     */
+    int addObstacle(double x, double y, double radius) {
+        if (!(radius > 0) || Double.isInfinite(radius)) {
+            throw new IllegalArgumentException("Invalid obstacle radius " + radius);
+        }
+        if (obstacleCount == obstacleX.length) {
+            int capacity = obstacleCount * 2;
+            obstacleX = Arrays.copyOf(obstacleX, capacity);
+            obstacleY = Arrays.copyOf(obstacleY, capacity);
+            obstacleRadius = Arrays.copyOf(obstacleRadius, capacity);
+            obstacleGrid.ensureCapacity(capacity, obstacleX, obstacleY, obstacleCount);
+        }
+        int index = obstacleCount++;
+        obstacleX[index] = x;
+        obstacleY[index] = y;
+        obstacleRadius[index] = radius;
+        maxObstacleRadius = Math.max(maxObstacleRadius, radius);
+        obstacleGrid.insert(index, x, y);
+        return index;
+    }
+
+    /**
+     * Удаляет все препятствия.
+     */
+    void clearObstacles() {
+        obstacleCount = 0;
+        maxObstacleRadius = 0;
+        obstacleGrid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, obstacleX.length);
+    }
+
+    int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    double getObstacleX(int index) {
+        checkObstacle(index);
+        return obstacleX[index];
+    }
+
+    double getObstacleY(int index) {
+        checkObstacle(index);
+        return obstacleY[index];
+    }
+
+    double getObstacleRadius(int index) {
+        checkObstacle(index);
+        return obstacleRadius[index];
+    }
+    /**
+     * Число касаний, исправленных последним вызовом resolveAll или resolve.
+     */
+    int getContacts() {
+        return contacts;
+    }
+    /**
+     * Разбирает столкновения всех роботов после такта.
+     */
+    void resolveAll(double[] x, double[] y, double[] targetX, double[] targetY, int size, SpatialGrid grid) {
+        contacts = 0;
+        if (mode == CollisionMode.NONE) {
+            return;
+        }
+        if (mode == CollisionMode.ALL && robotRadius > 0) {
+            for (int i = 0; i < size; i++) {
+                separateFromRobots(i, x, y, targetX, targetY, size, grid, true);
+            }
+        }
+        if (obstacleCount > 0) {
+            for (int i = 0; i < size; i++) {
+                pushOutOfObstacles(i, x, y, grid);
+            }
+        }
+    }
+    /**
+     * Разбирает столкновения одного робота, сдвинутого отдельно от остальных.
+     */
+    void resolve(int index, double[] x, double[] y, double[] targetX, double[] targetY, int size, SpatialGrid grid) {
+        contacts = 0;
+        if (mode == CollisionMode.NONE) {
+            return;
+        }
+        if (mode == CollisionMode.ALL && robotRadius > 0) {
+            separateFromRobots(index, x, y, targetX, targetY, size, grid, false);
+        }
+        if (obstacleCount > 0) {
+            pushOutOfObstacles(index, x, y, grid);
+        }
+    }
+    /**
+     * Расталкивает робота index с пересекающимися соседями.
+     *
+     * @param laterOnly Разбирать только пары с соседями большего индекса,
+     *                  чтобы при проходе по всем роботам каждая пара встречалась один раз.
+     */
+    private void separateFromRobots(int index, double[] x, double[] y, double[] targetX, double[] targetY,
+                                    int size, SpatialGrid grid, boolean laterOnly) {
+        double minDistance = 2 * robotRadius;
+        int found = query(grid, x, y, size, x[index], y[index], minDistance, index);
+        for (int k = 0; k < found; k++) {
+            int other = candidates[k];
+            if (laterOnly && other < index) {
+                continue;
+            }
+            double dx = x[other] - x[index];
+            double dy = y[other] - y[index];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (distance >= minDistance) {
+                // Робот index мог уже сдвинуться в этом проходе
+                continue;
+            }
+            double normalX = 1;
+            double normalY = 0;
+            if (distance > 0) {
+                normalX = dx / distance;
+                normalY = dy / distance;
+            }
+            double penetration = minDistance - distance;
+            boolean indexParked = isParked(index, x, y, targetX, targetY);
+            boolean otherParked = isParked(other, x, y, targetX, targetY);
+            double indexShare = indexParked == otherParked ? 0.5 : (indexParked ? 0 : 1);
+            x[index] -= normalX * penetration * indexShare;
+            y[index] -= normalY * penetration * indexShare;
+            x[other] += normalX * penetration * (1 - indexShare);
+            y[other] += normalY * penetration * (1 - indexShare);
+            grid.update(other, x[other], y[other]);
+            contacts++;
+        }
+        grid.update(index, x[index], y[index]);
+    }
+    private static boolean isParked(int index, double[] x, double[] y, double[] targetX, double[] targetY) {
+        return Kinematics.distance(targetX[index], targetY[index], x[index], y[index]) < RobotWorld.ARRIVAL_DISTANCE;
+    }
+    /**
+     * Выталкивает робота на границу препятствий, в которые он заехал.
+     */
+    private void pushOutOfObstacles(int index, double[] x, double[] y, SpatialGrid grid) {
+        int found = query(obstacleGrid, obstacleX, obstacleY, obstacleCount,
+                x[index], y[index], robotRadius + maxObstacleRadius, -1);
+        boolean moved = false;
+        for (int k = 0; k < found; k++) {
+            int obstacle = candidates[k];
+            double minDistance = robotRadius + obstacleRadius[obstacle];
+            double dx = x[index] - obstacleX[obstacle];
+            double dy = y[index] - obstacleY[obstacle];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (distance >= minDistance) {
+                continue;
+            }
+            double normalX = 1;
+            double normalY = 0;
+            if (distance > 0) {
+                normalX = dx / distance;
+                normalY = dy / distance;
+            }
+            x[index] = obstacleX[obstacle] + normalX * minDistance;
+            y[index] = obstacleY[obstacle] + normalY * minDistance;
+            moved = true;
+            contacts++;
+        }
+        if (moved) {
+            grid.update(index, x[index], y[index]);
+        }
+    }
+    /**
+     * Запрос широкой фазы в буфер кандидатов; буфер растет, если кандидатов больше его длины.
+     * Кандидаты упорядочиваются по индексу: порядок обхода ячеек зависит от истории сетки.
+     */
+    private int query(SpatialGrid source, double[] xs, double[] ys, int size,
+                      double x, double y, double radius, int exclude) {
+        int found = source.findNear(xs, ys, size, x, y, radius, exclude, candidates);
+        if (found > candidates.length) {
+            candidates = new int[Integer.highestOneBit(found) * 2];
+            found = source.findNear(xs, ys, size, x, y, radius, exclude, candidates);
+        }
+        Arrays.sort(candidates, 0, found);
+        return found;
+    }
+
+    private void checkObstacle(int index) {
+        if (index < 0 || index >= obstacleCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+}
@@ -1,36 +1,47 @@
 package model;
 
-import java.awt.*;
 /**
  * Реализация модели игрового мира по умолчанию.
  * Обеспечивает корректное движение робота с ограничением скоростей
- * и нормализацией углов.
+ * и нормализацией углов. Является представлением одного робота RobotWorld:
+ * собственного мира из одного робота, пока модель не подключена к другому миру.
  */
 public class DefaultGameModel implements GameModel{
-    private volatile double x = 100;
-    private volatile double y = 100;
-    private static final double maxVelocity = 0.1;
-    private static final double maxAngularVelocity = 0.001;
-    private volatile double direction = 0;
+    static final double MAX_VELOCITY = 0.1;
+    static final double MAX_ANGULAR_VELOCITY = 0.001;
+    private RobotWorld world;
+    private int index;
+
+    public DefaultGameModel() {
+        world = new RobotWorld(1);
+        index = world.addRobot(100, 100, 0);
+    }
+    /**
+     * Делает модель представлением робота с указанным индексом в мире.
+     */
+    void attach(RobotWorld world, int index) {
+        this.world = world;
+        this.index = index;
+    }
     @Override
     public double getX() {
-        return x;
+        return world.getX(index);
     };
     @Override
     public double getY() {
-        return y;
+        return world.getY(index);
     };
     @Override
     public double getMaxVelocity(){
-        return maxVelocity;
+        return world.getMaxVelocity(index);
     }
     @Override
     public double getMaxAngularVelocity(){
-        return maxAngularVelocity;
+        return world.getMaxAngularVelocity(index);
     }
     @Override
     public double getDirection(){
-        return direction;
+        return world.getDirection(index);
     }
     /**
      * Перемещает робота на основе скорости и угловой скорости.
@@ -41,44 +52,6 @@ public class DefaultGameModel implements GameModel{
      */
     @Override
     public void moveRobot(double velocity, double angularVelocity, double duration) {
-        velocity = applyLimits(velocity, 0, maxVelocity);
-        angularVelocity = applyLimits(angularVelocity, -maxAngularVelocity, maxAngularVelocity);
-        double newX = x + velocity / angularVelocity *
-                (Math.sin(direction  + angularVelocity * duration) -
-                        Math.sin(direction));
-        if (!Double.isFinite(newX))
-        {
-            newX = x + velocity * duration * Math.cos(direction);
-        }
-        double newY = y - velocity / angularVelocity *
-                (Math.cos(direction  + angularVelocity * duration) -
-                        Math.cos(direction));
-        if (!Double.isFinite(newY))
-        {
-            newY = y + velocity * duration * Math.sin(direction);
-        }
-        x = newX;
-        y = newY;
-        double newDirection = asNormalizedRadians(direction + angularVelocity * duration);
-        direction = newDirection;
-    }
-    /**
-     * Ограничивает значение в заданных пределах
-     */
-    private static double applyLimits(double value, double min, double max)
-    {
-        if (value < min)
-            return min;
-        if (value > max)
-            return max;
-        return value;
-    }
-    /**
-     * Нормализует угол в радианах к диапазону [0, 2π)
-     */
-    private static double asNormalizedRadians(double angle) {
-        while (angle < 0) angle += 2 * Math.PI;
-        while (angle >= 2 * Math.PI) angle -= 2 * Math.PI;
-        return angle;
+        world.moveRobot(index, velocity, angularVelocity, duration);
     }
 }
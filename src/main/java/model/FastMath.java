@@ -0,0 +1,68 @@
+package model;
+/**
+ * Приближенные тригонометрические функции для MathBackend.FAST.
+ * sin и cos берутся из таблицы на 4096 отрезков периода с линейной интерполяцией:
+ * погрешность не превышает h²/8 = 2.9e-7 при шаге таблицы h = 2π/4096.
+ * atan2 сводится к арктангенсу на [0, 1] и считается полиномом 9-й степени
+ * (Hastings) с погрешностью не более 1.2e-5 радиана.
+ */
+final class FastMath {
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double INDEX_SCALE = TABLE_SIZE / TWO_PI;
+    /**
+     * Значения синуса в узлах таблицы, последний узел повторяет первый
+     */
+    private static final double[] SIN_TABLE = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SIN_TABLE[i] = Math.sin(i * TWO_PI / TABLE_SIZE);
+        }
+    }
+
+    private FastMath() {
+    }
+
+    static double sin(double angle) {
+        return interpolate(angle * INDEX_SCALE);
+    }
+
+    static double cos(double angle) {
+        return interpolate(angle * INDEX_SCALE + TABLE_SIZE / 4.0);
+    }
+    /**
+     * Линейная интерполяция синуса по дробному индексу таблицы.
+     */
+    private static double interpolate(double position) {
+        double floor = Math.floor(position);
+        int index = (int) (long) floor & TABLE_MASK;
+        double fraction = position - floor;
+        double start = SIN_TABLE[index];
+        return start + (SIN_TABLE[index + 1] - start) * fraction;
+    }
+
+    static double atan2(double y, double x) {
+        double absX = Math.abs(x);
+        double absY = Math.abs(y);
+        if (absX == 0 && absY == 0) {
+            return 0;
+        }
+        double angle = absX >= absY
+                ? atan(absY / absX)
+                : Math.PI / 2 - atan(absX / absY);
+        if (x < 0) {
+            angle = Math.PI - angle;
+        }
+        return y < 0 ? -angle : angle;
+    }
+    /**
+     * Арктангенс для аргумента из [0, 1].
+     */
+    private static double atan(double z) {
+        double z2 = z * z;
+        return z * (0.9998660 + z2 * (-0.3302995 + z2 * (0.1801410 + z2 * (-0.0851330 + z2 * 0.0208351))));
+    }
+}
@@ -0,0 +1,39 @@
+package model;
+/**
+ * Вспомогательные функции кинематики робота: ограничение скоростей,
+ * нормализация углов и расстояние до цели.
+ */
+final class Kinematics {
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private Kinematics() {
+    }
+    /**
+     * Ограничивает значение в заданных пределах
+     */
+    static double applyLimits(double value, double min, double max) {
+        if (value < min)
+            return min;
+        if (value > max)
+            return max;
+        return value;
+    }
+    /**
+     * Нормализует угол в радианах к диапазону [0, 2π) одним округлением вниз
+     * вместо циклов. Для углов в пределах одного периода от [0, 2π) результат
+     * совпадает с последовательным прибавлением или вычитанием 2π бит в бит.
+     */
+    static double asNormalizedRadians(double angle) {
+        double result = angle - TWO_PI * Math.floor(angle / TWO_PI);
+        // Частное могло округлиться до целого, тогда результат выходит за границу на ulp
+        if (result < 0) result += TWO_PI;
+        if (result >= TWO_PI) result -= TWO_PI;
+        return result;
+    }
+    /**
+     * Вычисляет расстояние между двумя точками.
+     */
+    static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+    }
+}
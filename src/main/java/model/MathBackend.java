@@ -0,0 +1,82 @@
+package model;
+/**
+ * Реализация тригонометрии для расчета движения и выбора поворота.
+ * EXACT использует Math и дает воспроизводимые результаты, поэтому используется по умолчанию.
+ * FAST использует таблицу синусов с линейной интерполяцией и полиномиальный арктангенс.
+ * Гарантируется только погрешность отдельного вызова: FAST_SIN_ERROR для sin и cos
+ * и FAST_ATAN2_ERROR радиана для atan2.
+ * <p>
+ * Траектории с FAST и EXACT со временем расходятся: встроенная модель поворачивает
+ * с максимальной скоростью в сторону цели, и когда цель почти точно впереди или позади,
+ * ошибка atan2 может выбрать другую сторону поворота. Дальше роботы едут по разным
+ * траекториям, поэтому оценки расхождения за много тактов нет. За один такт из одного
+ * состояния направление совпадает, если совпала сторона поворота, а координаты
+ * отличаются не более чем на 2|v/ω| * FAST_SIN_ERROR.
+ */
+public enum MathBackend {
+    EXACT {
+        @Override
+        public double sin(double angle) {
+            return Math.sin(angle);
+        }
+
+        @Override
+        public double cos(double angle) {
+            return Math.cos(angle);
+        }
+
+        @Override
+        public double atan2(double y, double x) {
+            return Math.atan2(y, x);
+        }
+    },
+    FAST {
+        @Override
+        public double sin(double angle) {
+            return FastMath.sin(angle);
+        }
+
+        @Override
+        public double cos(double angle) {
+            return FastMath.cos(angle);
+        }
+
+        @Override
+        public double atan2(double y, double x) {
+            return FastMath.atan2(y, x);
+        }
+    };
+    /**
+     * Системное свойство, задающее реализацию по умолчанию
+     */
+    public static final String PROPERTY = "robots.math";
+    /**
+     * Наибольшая погрешность FAST для sin и cos (шаг таблицы h, оценка h²/8)
+     */
+    public static final double FAST_SIN_ERROR = 3e-7;
+    /**
+     * Наибольшая погрешность FAST для atan2 в радианах
+     */
+    public static final double FAST_ATAN2_ERROR = 1.2e-5;
+
+    public abstract double sin(double angle);
+
+    public abstract double cos(double angle);
+
+    public abstract double atan2(double y, double x);
+    /**
+     * Возвращает реализацию, указанную в системном свойстве robots.math,
+     * или EXACT, если свойство не задано или содержит неизвестное значение.
+     */
+    public static MathBackend fromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (MathBackend backend : values()) {
+                if (backend.name().equalsIgnoreCase(value.trim())) {
+                    return backend;
+                }
+            }
+        }
+        return EXACT;
+    }
+}
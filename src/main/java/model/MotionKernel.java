@@ -0,0 +1,17 @@
+package model;
+/**
+ * Пакетный расчет такта для роботов со встроенной моделью движения.
+ * Работает прямо над массивами состояния RobotWorld; роботов с подключаемой
+ * моделью (custom[i] == true) пропускает, их мир продвигает сам.
+ */
+interface MotionKernel {
+    /**
+     * Продвигает роботов с индексами из диапазона [from, to) на один такт.
+     *
+     * @return Количество роботов, которые сдвинулись.
+     */
+    int step(double[] x, double[] y, double[] direction,
+             double[] targetX, double[] targetY,
+             double[] maxVelocity, double[] maxAngularVelocity,
+             boolean[] custom, int from, int to, double duration);
+}
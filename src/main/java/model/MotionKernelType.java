@@ -0,0 +1,63 @@
+package model;
+/**
+ * Реализация пакетного такта для роботов со встроенной моделью движения.
+ */
+public enum MotionKernelType {
+    /**
+     * Скалярный расчет по одному роботу, эталонный и воспроизводимый бит в бит.
+     */
+    SCALAR,
+    /**
+     * Векторный расчет на jdk.incubator.vector. Требует запуска JVM
+     * с --add-modules jdk.incubator.vector, иначе используется SCALAR.
+     */
+    VECTOR;
+    /**
+     * Системное свойство, задающее реализацию по умолчанию
+     */
+    public static final String PROPERTY = "robots.kernel";
+    /**
+     * Допустимое расхождение VECTOR со SCALAR по координатам и направлению за один такт.
+     * Векторные sin, cos и atan2 отличаются от Math на несколько ulp, а множитель
+     * v/ω = 100 встроенной модели усиливает эту разницу примерно до 1e-14 за такт,
+     * так что допуск взят с большим запасом. За N тактов расхождение не превышает N * допуск.
+     */
+    public static final double VECTOR_TOLERANCE = 1e-9;
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    /**
+     * Проверяет, подключен ли модуль Vector API в текущей JVM.
+     */
+    public static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+    /**
+     * Возвращает реализацию, указанную в системном свойстве robots.kernel,
+     * или SCALAR, если свойство не задано или содержит неизвестное значение.
+     */
+    public static MotionKernelType fromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (MotionKernelType type : values()) {
+                if (type.name().equalsIgnoreCase(value.trim())) {
+                    return type;
+                }
+            }
+        }
+        return SCALAR;
+    }
+    /**
+     * Создает реализацию такта. Векторный класс загружается только при наличии модуля,
+     * иначе JVM без Vector API не смогла бы его связать.
+     */
+    MotionKernel createKernel(MathBackend math) {
+        if (this == VECTOR && isVectorAvailable()) {
+            try {
+                return (MotionKernel) Class.forName("model.VectorMotionKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return ScalarMotionKernel.of(math);
+            }
+        }
+        return ScalarMotionKernel.of(math);
+    }
+}
@@ -0,0 +1,283 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * Сетка занятости для планирования пути: прямоугольная область, разбитая на квадратные
+ * ячейки, каждая из которых свободна или занята препятствием, расширенным на радиус робота.
+ * Путь ищется алгоритмом A* с 8-связностью и затем спрямляется: из ломаной по ячейкам
+ * остаются только точки поворота, между которыми есть прямая видимость.
+ * <p>
+ * Все данные хранятся в примитивных массивах, которые переиспользуются между поисками,
+ * поэтому экземпляр не потокобезопасен и используется только потоком планировщика.
+ */
+final class OccupancyGrid {
+    private static final double DIAGONAL = Math.sqrt(2);
+    private static final int[] NEIGHBOUR_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+    private double originX;
+    private double originY;
+    private double cellSize;
+    private int width;
+    private int height;
+    private boolean[] blocked = new boolean[0];
+    private double[] cost = new double[0];
+    private int[] parent = new int[0];
+    /**
+     * Номер поиска, в котором ячейка была достигнута; позволяет не очищать массивы между поисками
+     */
+    private int[] visited = new int[0];
+    private boolean[] closed = new boolean[0];
+    private int search = 0;
+    private int[] heap = new int[0];
+    private double[] heapKey = new double[0];
+    private int heapSize;
+    /**
+     * Строит сетку над прямоугольником и отмечает занятые ячейки.
+     * Ячейка занята, если ее центр ближе к препятствию, чем радиус робота плюс половина ячейки.
+     */
+    void build(double minX, double minY, double maxX, double maxY, double cellSize,
+               double[] obstacleX, double[] obstacleY, double[] obstacleRadius, int obstacleCount,
+               double robotRadius) {
+        this.originX = minX;
+        this.originY = minY;
+        this.cellSize = cellSize;
+        this.width = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+        this.height = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+        int cells = width * height;
+        if (blocked.length < cells) {
+            blocked = new boolean[cells];
+            cost = new double[cells];
+            parent = new int[cells];
+            visited = new int[cells];
+            closed = new boolean[cells];
+            heap = new int[cells];
+            heapKey = new double[cells];
+            search = 0;
+        } else {
+            Arrays.fill(blocked, 0, cells, false);
+        }
+        for (int k = 0; k < obstacleCount; k++) {
+            double reach = obstacleRadius[k] + robotRadius + cellSize / 2;
+            int fromX = Math.max(0, cellX(obstacleX[k] - reach));
+            int toX = Math.min(width - 1, cellX(obstacleX[k] + reach));
+            int fromY = Math.max(0, cellY(obstacleY[k] - reach));
+            int toY = Math.min(height - 1, cellY(obstacleY[k] + reach));
+            for (int cy = fromY; cy <= toY; cy++) {
+                for (int cx = fromX; cx <= toX; cx++) {
+                    double dx = centerX(cx) - obstacleX[k];
+                    double dy = centerY(cy) - obstacleY[k];
+                    if (dx * dx + dy * dy < reach * reach) {
+                        blocked[cy * width + cx] = true;
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Ищет путь между точками и записывает путевые точки после спрямления.
+     *
+     * @return Путь или null, если цель недостижима или лежит в занятой ячейке.
+     */
+    Path findPath(double fromX, double fromY, double toX, double toY) {
+        int start = cell(fromX, fromY);
+        int goal = cell(toX, toY);
+        if (start < 0 || goal < 0 || blocked[goal]) {
+            return null;
+        }
+        if (isVisible(fromX, fromY, toX, toY)) {
+            return Path.direct(fromX, fromY, toX, toY, true);
+        }
+        if (!search(start, goal)) {
+            return null;
+        }
+        return smooth(fromX, fromY, toX, toY, goal);
+    }
+    /**
+     * A* по ячейкам с октильной эвристикой. Начальная ячейка считается свободной,
+     * даже если робот касается препятствия.
+     */
+    private boolean search(int start, int goal) {
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            search = 1;
+        }
+        int goalX = goal % width;
+        int goalY = goal / width;
+        heapSize = 0;
+        visit(start, 0, -1);
+        push(start, heuristic(start % width, start / width, goalX, goalY));
+        while (heapSize > 0) {
+            int current = pop();
+            if (current == goal) {
+                return true;
+            }
+            if (closed[current]) {
+                continue;
+            }
+            closed[current] = true;
+            int cx = current % width;
+            int cy = current / width;
+            for (int k = 0; k < NEIGHBOUR_X.length; k++) {
+                int nx = cx + NEIGHBOUR_X[k];
+                int ny = cy + NEIGHBOUR_Y[k];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int next = ny * width + nx;
+                if (blocked[next]) {
+                    continue;
+                }
+                boolean diagonal = k >= 4;
+                // По диагонали нельзя срезать угол занятой ячейки
+                if (diagonal && (blocked[cy * width + nx] || blocked[ny * width + cx])) {
+                    continue;
+                }
+                double nextCost = cost[current] + (diagonal ? DIAGONAL : 1);
+                if (visited[next] == search && (closed[next] || cost[next] <= nextCost)) {
+                    continue;
+                }
+                visit(next, nextCost, current);
+                push(next, nextCost + heuristic(nx, ny, goalX, goalY));
+            }
+        }
+        return false;
+    }
+
+    private void visit(int cell, double cellCost, int from) {
+        if (visited[cell] != search) {
+            visited[cell] = search;
+            closed[cell] = false;
+        }
+        cost[cell] = cellCost;
+        parent[cell] = from;
+    }
+
+    private static double heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(x - goalX);
+        int dy = Math.abs(y - goalY);
+        return Math.max(dx, dy) + (DIAGONAL - 1) * Math.min(dx, dy);
+    }
+    /**
+     * Спрямляет найденную ломаную: идет от начала и оставляет точку, только если
+     * из последней оставленной точки не видна следующая.
+     */
+    private Path smooth(double fromX, double fromY, double toX, double toY, int goal) {
+        int length = 0;
+        for (int cell = goal; cell >= 0; cell = parent[cell]) {
+            length++;
+        }
+        int[] cells = new int[length];
+        int position = length;
+        for (int cell = goal; cell >= 0; cell = parent[cell]) {
+            cells[--position] = cell;
+        }
+        double[] xs = new double[length];
+        double[] ys = new double[length];
+        int count = 0;
+        double anchorX = fromX;
+        double anchorY = fromY;
+        for (int i = 1; i < length; i++) {
+            double nextX = i == length - 1 ? toX : centerX(cells[i] % width);
+            double nextY = i == length - 1 ? toY : centerY(cells[i] / width);
+            if (!isVisible(anchorX, anchorY, nextX, nextY)) {
+                anchorX = centerX(cells[i - 1] % width);
+                anchorY = centerY(cells[i - 1] / width);
+                xs[count] = anchorX;
+                ys[count] = anchorY;
+                count++;
+            }
+        }
+        xs[count] = toX;
+        ys[count] = toY;
+        count++;
+        return new Path(fromX, fromY, Arrays.copyOf(xs, count), Arrays.copyOf(ys, count), true);
+    }
+    /**
+     * Проверяет прямую видимость: отрезок не проходит через занятые ячейки.
+     * Отрезок проверяется с шагом в четверть ячейки.
+     */
+    boolean isVisible(double fromX, double fromY, double toX, double toY) {
+        double length = Math.hypot(toX - fromX, toY - fromY);
+        int steps = (int) Math.ceil(length / (cellSize / 4));
+        for (int i = 1; i <= steps; i++) {
+            double t = (double) i / steps;
+            int cell = cell(fromX + (toX - fromX) * t, fromY + (toY - fromY) * t);
+            if (cell < 0 || blocked[cell]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * Возвращает номер ячейки точки или -1, если точка вне сетки.
+     */
+    int cell(double x, double y) {
+        int cx = cellX(x);
+        int cy = cellY(y);
+        if (cx < 0 || cy < 0 || cx >= width || cy >= height) {
+            return -1;
+        }
+        return cy * width + cx;
+    }
+
+    private int cellX(double x) {
+        return (int) Math.floor((x - originX) / cellSize);
+    }
+
+    private int cellY(double y) {
+        return (int) Math.floor((y - originY) / cellSize);
+    }
+
+    private double centerX(int cx) {
+        return originX + (cx + 0.5) * cellSize;
+    }
+
+    private double centerY(int cy) {
+        return originY + (cy + 0.5) * cellSize;
+    }
+
+    private void push(int cell, double key) {
+        if (heapSize == heap.length) {
+            // Ячейка может попасть в кучу несколько раз, если к ней нашелся путь короче
+            heap = Arrays.copyOf(heap, heap.length * 2);
+            heapKey = Arrays.copyOf(heapKey, heapKey.length * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKey[up] <= key) {
+                break;
+            }
+            heap[i] = heap[up];
+            heapKey[i] = heapKey[up];
+            i = up;
+        }
+        heap[i] = cell;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        double lastKey = heapKey[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) {
+                child++;
+            }
+            if (heapKey[child] >= lastKey) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heap[i] = last;
+        heapKey[i] = lastKey;
+        return top;
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * Неизменяемый путь робота: начальная точка и последовательность путевых точек,
+ * последняя из которых - цель. Строится PathPlanner.
+ */
+public final class Path {
+    private final double startX;
+    private final double startY;
+    private final double[] xs;
+    private final double[] ys;
+    private final boolean found;
+
+    Path(double startX, double startY, double[] xs, double[] ys, boolean found) {
+        if (xs.length == 0 || xs.length != ys.length) {
+            throw new IllegalArgumentException("Path needs at least one waypoint");
+        }
+        this.startX = startX;
+        this.startY = startY;
+        this.xs = xs;
+        this.ys = ys;
+        this.found = found;
+    }
+    /**
+     * Создает путь из копий массивов координат путевых точек; последняя точка - цель.
+     * Используется при чтении сохраненных путей.
+     */
+    public static Path of(double startX, double startY, double[] xs, double[] ys, boolean found) {
+        return new Path(startX, startY, xs.clone(), ys.clone(), found);
+    }
+    /**
+     * Путь из одной точки: движение прямо к цели.
+     */
+    static Path direct(double startX, double startY, double targetX, double targetY, boolean found) {
+        return new Path(startX, startY, new double[]{targetX}, new double[]{targetY}, found);
+    }
+    /**
+     * Возвращает этот путь с другими начальной и конечной точками. Используется для
+     * путей из кэша, построенных для соседних точек той же ячейки сетки.
+     */
+    Path withEnds(double startX, double startY, double targetX, double targetY) {
+        double[] newXs = Arrays.copyOf(xs, xs.length);
+        double[] newYs = Arrays.copyOf(ys, ys.length);
+        newXs[newXs.length - 1] = targetX;
+        newYs[newYs.length - 1] = targetY;
+        return new Path(startX, startY, newXs, newYs, found);
+    }
+    /**
+     * Возвращает число путевых точек, включая цель.
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    public double getStartX() {
+        return startX;
+    }
+
+    public double getStartY() {
+        return startY;
+    }
+
+    public double getTargetX() {
+        return xs[xs.length - 1];
+    }
+
+    public double getTargetY() {
+        return ys[ys.length - 1];
+    }
+    /**
+     * Найден ли путь в обход препятствий. Если цель недостижима или лежит
+     * в препятствии, путь ведет прямо к ней.
+     */
+    public boolean isFound() {
+        return found;
+    }
+}
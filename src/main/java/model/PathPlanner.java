@@ -0,0 +1,180 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+/**
+ * Планировщик путей роботов мира в обход препятствий. Путь ищется алгоритмом A*
+ * на сетке занятости (см. OccupancyGrid) в отдельном потоке планировщика, поэтому
+ * долгий поиск не задерживает такты симуляции: до готовности пути робот едет прямо к цели.
+ * <p>
+ * Готовые пути хранятся в LRU-кэше. Ключ кэша - ячейки сетки начала и цели и версия
+ * препятствий мира, которая меняется при добавлении препятствия, смене радиуса робота
+ * и восстановлении состояния, поэтому повторные запросы и запросы из соседних точек
+ * той же ячейки не ищут путь заново, а пути для прежних препятствий больше не выдаются. Планировщик не учитывает радиус
+ * поворота робота: путь огибает препятствия с запасом в радиус робота, а на поворотах
+ * робот может срезать или выносить угол, тогда его выталкивает обработка столкновений.
+ */
+public class PathPlanner {
+    /**
+     * Сторона ячейки сетки занятости
+     */
+    public static final double CELL_SIZE = 5;
+    /**
+     * Число путей в кэше
+     */
+    public static final int CACHE_SIZE = 256;
+    /**
+     * Запас сетки вокруг начала, цели и препятствий в ячейках, чтобы путь мог обойти препятствие с краю
+     */
+    private static final int MARGIN_CELLS = 8;
+    /**
+     * Наибольшее число ячеек сетки; для больших областей ячейка увеличивается
+     */
+    private static final int MAX_CELLS = 4_000_000;
+    private final RobotWorld world;
+    private final OccupancyGrid grid = new OccupancyGrid();
+    private final Map<PathKey, Path> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PathKey, Path> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "path-planner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long cacheHits = 0;
+    private long cacheMisses = 0;
+
+    PathPlanner(RobotWorld world) {
+        this.world = world;
+    }
+    /**
+     * Строит путь между точками в потоке планировщика. Если в мире нет препятствий
+     * или путь есть в кэше, результат готов сразу.
+     */
+    public CompletableFuture<Path> plan(double fromX, double fromY, double toX, double toY) {
+        if (world.getObstacleCount() == 0) {
+            return CompletableFuture.completedFuture(Path.direct(fromX, fromY, toX, toY, true));
+        }
+        Path cached = lookup(fromX, fromY, toX, toY);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> planNow(fromX, fromY, toX, toY), executor);
+    }
+    /**
+     * Направляет робота к цели: сразу назначает цель, чтобы робот ехал к ней напрямую,
+     * и строит путь в потоке планировщика. Готовый путь назначается роботу, только если
+     * его цель за это время не изменилась.
+     *
+     * @return Путь, который получил робот.
+     */
+    public CompletableFuture<Path> navigate(int index, double toX, double toY) {
+        world.setTarget(index, toX, toY);
+        return plan(world.getX(index), world.getY(index), toX, toY).thenApply(path -> {
+            world.followPath(index, path);
+            return path;
+        });
+    }
+    /**
+     * Строит путь в потоке планировщика. Сетка занятости используется только этим
+     * потоком, а кэш защищен отдельной блокировкой, которая не удерживается во время
+     * поиска, поэтому запросы к кэшу из других потоков не ждут долгий поиск.
+     */
+    private Path planNow(double fromX, double fromY, double toX, double toY) {
+        long version = world.getObstacleVersion();
+        PathKey key = key(fromX, fromY, toX, toY, version);
+        Path cached = cached(key, fromX, fromY, toX, toY);
+        if (cached != null) {
+            return cached;
+        }
+        Path path = search(fromX, fromY, toX, toY, world.getObstacleCount());
+        synchronized (cache) {
+            cacheMisses++;
+            // Если препятствия изменились во время поиска, путь мог быть построен по смеси старых и новых
+            if (world.getObstacleVersion() == version) {
+                cache.put(key, path);
+            }
+        }
+        return path;
+    }
+
+    private Path lookup(double fromX, double fromY, double toX, double toY) {
+        return cached(key(fromX, fromY, toX, toY, world.getObstacleVersion()), fromX, fromY, toX, toY);
+    }
+
+    private Path cached(PathKey key, double fromX, double fromY, double toX, double toY) {
+        Path cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+            if (cached == null) {
+                return null;
+            }
+            cacheHits++;
+        }
+        return cached.withEnds(fromX, fromY, toX, toY);
+    }
+
+    private Path search(double fromX, double fromY, double toX, double toY, int obstacles) {
+        double[] obstacleX = new double[obstacles];
+        double[] obstacleY = new double[obstacles];
+        double[] obstacleRadius = new double[obstacles];
+        double minX = Math.min(fromX, toX);
+        double minY = Math.min(fromY, toY);
+        double maxX = Math.max(fromX, toX);
+        double maxY = Math.max(fromY, toY);
+        for (int i = 0; i < obstacles; i++) {
+            obstacleX[i] = world.getObstacleX(i);
+            obstacleY[i] = world.getObstacleY(i);
+            obstacleRadius[i] = world.getObstacleRadius(i);
+            minX = Math.min(minX, obstacleX[i] - obstacleRadius[i]);
+            minY = Math.min(minY, obstacleY[i] - obstacleRadius[i]);
+            maxX = Math.max(maxX, obstacleX[i] + obstacleRadius[i]);
+            maxY = Math.max(maxY, obstacleY[i] + obstacleRadius[i]);
+        }
+        double robotRadius = world.getRobotRadius();
+        double cellSize = CELL_SIZE;
+        double area = (maxX - minX + 2 * MARGIN_CELLS * cellSize + 2 * robotRadius)
+                * (maxY - minY + 2 * MARGIN_CELLS * cellSize + 2 * robotRadius);
+        if (area / (cellSize * cellSize) > MAX_CELLS) {
+            cellSize = Math.sqrt(area / MAX_CELLS);
+        }
+        double margin = MARGIN_CELLS * cellSize + robotRadius;
+        grid.build(minX - margin, minY - margin, maxX + margin, maxY + margin, cellSize,
+                obstacleX, obstacleY, obstacleRadius, obstacles, robotRadius);
+        Path path = grid.findPath(fromX, fromY, toX, toY);
+        return path != null ? path : Path.direct(fromX, fromY, toX, toY, false);
+    }
+
+    private static PathKey key(double fromX, double fromY, double toX, double toY, long version) {
+        return new PathKey(cell(fromX), cell(fromY), cell(toX), cell(toY), version);
+    }
+
+    private static long cell(double coordinate) {
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+    /**
+     * Возвращает число запросов, на которые ответил кэш.
+     */
+    public long getCacheHits() {
+        synchronized (cache) {
+            return cacheHits;
+        }
+    }
+    /**
+     * Возвращает число запросов, для которых путь искался заново.
+     */
+    public long getCacheMisses() {
+        synchronized (cache) {
+            return cacheMisses;
+        }
+    }
+
+    private record PathKey(long fromX, long fromY, long toX, long toY, long obstacleVersion) {
+    }
+}
@@ -1,23 +1,26 @@
 package model;
-import view.RobotVisualizer;
 
 import java.awt.*;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 /**
  * Класс RobotModel представляет модель робота, управляющую его позицией и направлением.
- * Модель уведомляет слушателей об изменениях через PropertyChangeSupport.
+ * Является представлением одного робота в мире RobotWorld.
+ * Модель уведомляет слушателей об изменениях через RobotStateListener без создания
+ * объектов на каждом такте, а также через PropertyChangeSupport, если такие слушатели есть.
  */
 public class RobotModel{
-    private volatile double x;
-    private volatile double y;
-    private volatile double direction = 0;
-    private volatile int targetX = 150;
-    private volatile int targetY = 100;
-    private static double maxVelocity;
-    private static double maxAngularVelocity;
-    private GameModel model;
+    /**
+     * Длительность такта updateModel
+     */
+    private static final double TICK_DURATION = 10;
+    private final RobotWorld world;
+    private final int index;
     private final PropertyChangeSupport support = new PropertyChangeSupport(this);
+    private volatile RobotStateListener[] stateListeners = new RobotStateListener[0];
+    private final RobotState notifiedState = new RobotState();
     /**
      * Добавляет слушателя изменений.
      *
@@ -26,19 +29,55 @@ public class RobotModel{
     public void addPropertyChangeListener(PropertyChangeListener listener) {
         support.addPropertyChangeListener(listener);
     }
+    /**
+     * Добавляет слушателя изменений состояния с примитивными параметрами.
+     */
+    public synchronized void addStateListener(RobotStateListener listener) {
+        RobotStateListener[] listeners = Arrays.copyOf(stateListeners, stateListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        stateListeners = listeners;
+    }
+    /**
+     * Удаляет слушателя изменений состояния.
+     */
+    public synchronized void removeStateListener(RobotStateListener listener) {
+        RobotStateListener[] listeners = stateListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                RobotStateListener[] copy = new RobotStateListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+                stateListeners = copy;
+                return;
+            }
+        }
+    }
+    /**
+     * Создает модель единственного робота в собственном мире.
+     */
     public RobotModel(GameModel model){
+        this.world = new RobotWorld(1);
+        this.index = world.addRobot(model.getX(), model.getY(), model.getDirection(), 150, 100);
         setModel(model);
     }
+    /**
+     * Создает представление робота с указанным индексом в существующем мире.
+     */
+    public RobotModel(RobotWorld world, int index){
+        if (index < 0 || index >= world.size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        this.world = world;
+        this.index = index;
+    }
     public void setModel(GameModel model) {
-        this.model = model;
-        setField();
+        world.setModel(index, model);
     }
+    /**
+     * Перечитывает состояние робота из его модели движения.
+     */
     public void setField(){
-        x = model.getX();
-        y = model.getY();
-        maxVelocity = model.getMaxVelocity();
-        maxAngularVelocity = model.getMaxAngularVelocity();
-        direction = model.getDirection();
+        world.syncFromModel(index);
     }
     /**
      * Устанавливает новую цель для робота.
@@ -47,53 +86,99 @@ public class RobotModel{
      * @param y Координата Y цели.
      */
     public void setTarget(int x, int y) {
-        this.targetX = x;
-        this.targetY = y;
-        support.firePropertyChange("target", null, new Point(x, y));
+        world.setTarget(index, x, y);
+        for (RobotStateListener listener : stateListeners) {
+            listener.onTargetChanged(x, y);
+        }
+        if (support.hasListeners("target")) {
+            support.firePropertyChange("target", null, new Point(x, y));
+        }
+    }
+    /**
+     * Направляет робота к точке в обход препятствий. Путь строится в потоке планировщика
+     * мира; пока он не готов, робот едет к точке напрямую, а затем updateModel
+     * и такты мира ведут его по путевым точкам.
+     *
+     * @return Путь, который получил робот.
+     */
+    public CompletableFuture<Path> navigateTo(int x, int y) {
+        CompletableFuture<Path> path = world.getPathPlanner().navigate(index, x, y);
+        for (RobotStateListener listener : stateListeners) {
+            listener.onTargetChanged(x, y);
+        }
+        if (support.hasListeners("target")) {
+            support.firePropertyChange("target", null, new Point(x, y));
+        }
+        return path;
     }
     /**
      * Обновляет состояние модели (позицию и направление робота).
      */
     public void updateModel() {
-        double distance = distance(targetX, targetY, x, y);
-        if (distance < 0.5) return;
-
-        double velocity = maxVelocity;
-        double angleToTarget = angleTo(x, y, targetX, targetY);
-
-        double angleDifference = asNormalizedRadians(angleToTarget - direction);
-        double angularVelocity = (angleDifference <= Math.PI) ? maxAngularVelocity : -maxAngularVelocity;
-
-        model.moveRobot(velocity, angularVelocity, 10);
-        setField();
-        support.firePropertyChange("position", null, new Point((int) x, (int) y));
-
+        if (!world.stepRobot(index, TICK_DURATION)) return;
+        firePositionChanged();
+    }
+    /**
+     * Продвигает робота на time единиц времени по аналитической траектории без расчета тактов.
+     * Результат совпадает с вызовами updateModel с точностью, описанной в Trajectory.
+     *
+     * @return Время, которое робот двигался: меньше time, если он прибыл раньше.
+     */
+    public double fastForward(double time) {
+        double moved = world.fastForward(index, time, TICK_DURATION);
+        firePositionChanged();
+        return moved;
+    }
+    /**
+     * Переносит робота сразу к цели по аналитической траектории.
+     *
+     * @return Время до прибытия или бесконечность, если робот кружит вокруг цели и не прибывает.
+     */
+    public double fastForwardToArrival() {
+        double arrival = world.fastForwardToArrival(index, TICK_DURATION);
+        firePositionChanged();
+        return arrival;
     }
     /**
-     * Вычисляет расстояние между двумя точками.
+     * Возвращает аналитическую траекторию робота от текущего состояния до цели.
      */
-    private static double distance(double x1, double y1, double x2, double y2) {
-        return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+    public Trajectory getTrajectory() {
+        return world.trajectory(index, TICK_DURATION);
     }
     /**
-     * Вычисляет угол до цели.
+     * Уведомляет слушателей о текущей позиции робота.
+     * Вызывается после того, как мир был продвинут извне, например потоком симуляции.
+     * Событие PropertyChangeEvent создается, только если есть слушатели свойства position.
      */
-    private static double angleTo(double fromX, double fromY, double toX, double toY) {
-        return asNormalizedRadians(Math.atan2(toY - fromY, toX - fromX));
+    public synchronized void firePositionChanged() {
+        readState(notifiedState);
+        double x = notifiedState.getX();
+        double y = notifiedState.getY();
+        double direction = notifiedState.getDirection();
+        for (RobotStateListener listener : stateListeners) {
+            listener.onPositionChanged(x, y, direction);
+        }
+        if (support.hasListeners("position")) {
+            support.firePropertyChange("position", null, new Point((int) x, (int) y));
+        }
     }
     /**
-     * Нормализует угол в радианах.
+     * Копирует согласованное состояние робота (позицию, направление и цель одного такта).
      */
-    private static double asNormalizedRadians(double angle) {
-        while (angle < 0) angle += 2 * Math.PI;
-        while (angle >= 2 * Math.PI) angle -= 2 * Math.PI;
-        return angle;
+    public void readState(RobotState state) {
+        world.readState(index, state);
     }
-    public int getTargetX() { return targetX; }
-    public int getTargetY() { return targetY; }
-    public double getX() { return x; }
-    public double getY() { return y; }
+    public RobotWorld getWorld() { return world; }
+    public int getIndex() { return index; }
+    /**
+     * Возвращает путь, по которому следует робот, или null, если он едет прямо к цели.
+     */
+    public Path getPath() { return world.getPath(index); }
+    public int getTargetX() { return (int) world.getTargetX(index); }
+    public int getTargetY() { return (int) world.getTargetY(index); }
+    public double getX() { return world.getX(index); }
+    public double getY() { return world.getY(index); }
     public double getDirection() {
-        return direction;
+        return world.getDirection(index);
     }
 }
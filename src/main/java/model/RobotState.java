@@ -0,0 +1,27 @@
+package model;
+/**
+ * Изменяемый контейнер согласованного состояния одного робота.
+ * Заполняется методами RobotWorld.readState и RobotModel.readState;
+ * один экземпляр переиспользуется читателем, чтобы не создавать объекты на каждом кадре.
+ */
+public final class RobotState {
+    private double x;
+    private double y;
+    private double direction;
+    private double targetX;
+    private double targetY;
+
+    void set(double x, double y, double direction, double targetX, double targetY) {
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+        this.targetX = targetX;
+        this.targetY = targetY;
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getDirection() { return direction; }
+    public double getTargetX() { return targetX; }
+    public double getTargetY() { return targetY; }
+}
@@ -0,0 +1,21 @@
+package model;
+/**
+ * Слушатель изменений состояния робота с примитивными параметрами.
+ * В отличие от PropertyChangeListener, уведомление не создает объектов,
+ * поэтому рассылка на каждом такте не нагружает сборщик мусора.
+ */
+public interface RobotStateListener {
+    /**
+     * Вызывается после перемещения робота.
+     *
+     * @param x         Координата X робота.
+     * @param y         Координата Y робота.
+     * @param direction Направление робота в радианах.
+     */
+    void onPositionChanged(double x, double y, double direction);
+    /**
+     * Вызывается при смене цели робота.
+     */
+    default void onTargetChanged(int x, int y) {
+    }
+}
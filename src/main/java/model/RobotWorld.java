@@ -0,0 +1,1224 @@
+package model;
+
+import metrics.PluginMoveEvent;
+import metrics.TickEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.StampedLock;
+/**
+ * Модель мира, в котором одновременно движется множество роботов.
+ * Состояние хранится в примитивных массивах (структура массивов):
+ * позиции, направления, цели и ограничения скоростей каждого робота.
+ * Метод step продвигает всех роботов одним пакетом за такт.
+ * RobotModel и DefaultGameModel являются представлениями одного робота этого мира.
+ * <p>
+ * Мир продвигается в потоке симуляции, а читается из потока обработки событий
+ * и других потоков. Изменения выполняются под блокировкой записи StampedLock,
+ * а чтение сначала выполняется оптимистично (как в seqlock) и повторяется под
+ * блокировкой чтения, только если за это время мир был изменен. Поэтому readState
+ * и snapshot возвращают согласованное состояние одного такта и не задерживают
+ * поток симуляции, пока шаг не совпал с чтением.
+ * <p>
+ * Мир поддерживает пространственный индекс (равномерную сетку), который обновляется
+ * при каждом перемещении роботов, и отвечает на запросы о роботах рядом с точкой,
+ * ближайшем роботе и соседях робота быстрее полного перебора. Через этот же индекс
+ * разбираются столкновения роботов с препятствиями и друг с другом (см. CollisionMode).
+ * <p>
+ * Мир считает выполненные такты и сообщает о каждой команде и такте слушателям
+ * WorldListener, а его полное состояние можно снять и восстановить через WorldState.
+ */
+public class RobotWorld {
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Расстояние до цели, на котором робот считается прибывшим
+     */
+    static final double ARRIVAL_DISTANCE = 0.5;
+    /**
+     * Расстояние до промежуточной путевой точки, на котором робот переходит к следующей
+     */
+    static final double WAYPOINT_DISTANCE = 10;
+    /**
+     * Наибольшее число роботов в одной задаче параллельного шага
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 2048;
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int DIRECTION = 2;
+    private static final int TARGET_X = 3;
+    private static final int TARGET_Y = 4;
+    private static final int MAX_VELOCITY = 5;
+    private static final int MAX_ANGULAR_VELOCITY = 6;
+    private final StampedLock lock = new StampedLock();
+    private int size = 0;
+    private double[] x;
+    private double[] y;
+    private double[] direction;
+    private double[] targetX;
+    private double[] targetY;
+    private double[] maxVelocity;
+    private double[] maxAngularVelocity;
+    /**
+     * Подключаемые модели движения. null означает встроенную модель,
+     * которая считается прямо над массивами мира.
+     */
+    private GameModel[] models;
+    /**
+     * Признак робота с подключаемой моделью; такие роботы пропускаются MotionKernel
+     */
+    private boolean[] custom;
+    private int customCount = 0;
+    private SpatialGrid grid;
+    private final CollisionResolver collisions = new CollisionResolver();
+    /**
+     * Пути, по которым следуют роботы; null - робот едет прямо к цели
+     */
+    private Path[] paths;
+    /**
+     * Номер текущей путевой точки в пути робота
+     */
+    private int[] waypoints;
+    private int pathCount = 0;
+    private volatile PathPlanner pathPlanner;
+    /**
+     * Версия препятствий и радиуса робота: увеличивается при каждом их изменении,
+     * по ней PathPlanner отличает пути, построенные для прежних препятствий
+     */
+    private long obstacleVersion = 0;
+    /**
+     * Число выполненных тактов мира
+     */
+    private long tick = 0;
+    /**
+     * Слушатели изменений; массив заменяется целиком под блокировкой записи
+     */
+    private WorldListener[] listeners = new WorldListener[0];
+    /**
+     * Переиспользуемое состояние для опорных кадров слушателей
+     */
+    private WorldState keyframe;
+    /**
+     * История траекторий, которую мир пополняет после каждого такта; null - не ведется
+     */
+    private volatile TrajectoryHistory history;
+    private volatile StepMode stepMode = StepMode.fromProperty();
+    private volatile MotionKernelType kernelType = MotionKernelType.SCALAR;
+    private volatile MathBackend mathBackend = MathBackend.fromProperty();
+    private volatile MotionKernel kernel = ScalarMotionKernel.EXACT;
+    /**
+     * Скалярная реализация с текущей тригонометрией для роботов, которые считаются по одному
+     */
+    private volatile ScalarMotionKernel scalarKernel = ScalarMotionKernel.EXACT;
+
+    public RobotWorld() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public RobotWorld(int capacity) {
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        direction = new double[capacity];
+        targetX = new double[capacity];
+        targetY = new double[capacity];
+        maxVelocity = new double[capacity];
+        maxAngularVelocity = new double[capacity];
+        models = new GameModel[capacity];
+        custom = new boolean[capacity];
+        paths = new Path[capacity];
+        waypoints = new int[capacity];
+        grid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, capacity);
+        setMotionKernel(MotionKernelType.fromProperty());
+    }
+    /**
+     * Добавляет робота со встроенной моделью движения, цель совпадает с его позицией.
+     *
+     * @return Индекс нового робота.
+     */
+    public int addRobot(double x, double y, double direction) {
+        return addRobot(x, y, direction, x, y);
+    }
+    /**
+     * Добавляет робота со встроенной моделью движения и заданной целью.
+     *
+     * @return Индекс нового робота.
+     */
+    public int addRobot(double x, double y, double direction, double targetX, double targetY) {
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + 1);
+            int index = size++;
+            this.x[index] = x;
+            this.y[index] = y;
+            this.direction[index] = direction;
+            this.targetX[index] = targetX;
+            this.targetY[index] = targetY;
+            this.maxVelocity[index] = DefaultGameModel.MAX_VELOCITY;
+            this.maxAngularVelocity[index] = DefaultGameModel.MAX_ANGULAR_VELOCITY;
+            this.models[index] = null;
+            this.custom[index] = false;
+            grid.insert(index, x, y);
+            for (WorldListener listener : listeners) {
+                listener.onRobotAdded(tick, index, x, y, direction, targetX, targetY);
+            }
+            return index;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Увеличивает массивы состояния, чтобы вместить указанное число роботов.
+     */
+    private void ensureCapacity(int required) {
+        if (required <= x.length) {
+            return;
+        }
+        int capacity = Math.max(required, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        targetX = Arrays.copyOf(targetX, capacity);
+        targetY = Arrays.copyOf(targetY, capacity);
+        maxVelocity = Arrays.copyOf(maxVelocity, capacity);
+        maxAngularVelocity = Arrays.copyOf(maxAngularVelocity, capacity);
+        models = Arrays.copyOf(models, capacity);
+        custom = Arrays.copyOf(custom, capacity);
+        paths = Arrays.copyOf(paths, capacity);
+        waypoints = Arrays.copyOf(waypoints, capacity);
+        grid.ensureCapacity(capacity, x, y, size);
+    }
+    /**
+     * Возвращает количество роботов в мире.
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+    /**
+     * Назначает роботу модель движения. Состояние робота берется из модели.
+     * DefaultGameModel после этого становится представлением робота этого мира,
+     * и робот движется встроенным пакетным расчетом; остальные модели
+     * вызываются через интерфейс GameModel.
+     */
+    public void setModel(int index, GameModel model) {
+        // Модель может быть представлением этого же мира, поэтому читаем ее до захвата блокировки
+        double modelX = model.getX();
+        double modelY = model.getY();
+        double modelDirection = model.getDirection();
+        double modelMaxVelocity = model.getMaxVelocity();
+        double modelMaxAngularVelocity = model.getMaxAngularVelocity();
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            x[index] = modelX;
+            y[index] = modelY;
+            direction[index] = modelDirection;
+            maxVelocity[index] = modelMaxVelocity;
+            maxAngularVelocity[index] = modelMaxAngularVelocity;
+            boolean plugin = !(model instanceof DefaultGameModel);
+            if (custom[index] != plugin) {
+                customCount += plugin ? 1 : -1;
+            }
+            custom[index] = plugin;
+            if (model instanceof DefaultGameModel defaultModel) {
+                defaultModel.attach(this, index);
+                models[index] = null;
+            } else {
+                models[index] = model;
+            }
+            grid.update(index, modelX, modelY);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Перечитывает позицию и направление робота из его подключаемой модели.
+     * Для встроенной модели ничего не делает.
+     */
+    public void syncFromModel(int index) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            GameModel model = models[index];
+            if (model != null) {
+                x[index] = model.getX();
+                y[index] = model.getY();
+                direction[index] = model.getDirection();
+                grid.update(index, x[index], y[index]);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Устанавливает новую цель для робота. Путь, по которому робот следовал, сбрасывается.
+     */
+    public void setTarget(int index, double x, double y) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            if (paths[index] != null) {
+                paths[index] = null;
+                pathCount--;
+            }
+            targetX[index] = x;
+            targetY[index] = y;
+            for (WorldListener listener : listeners) {
+                listener.onTargetChanged(tick, index, x, y);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Назначает роботу путь: целью становится первая путевая точка, а по мере продвижения
+     * робот переходит к следующим. Путь назначается, только если он ведет к текущей цели
+     * робота, поэтому запоздавший путь к цели, которую уже сменили, отбрасывается.
+     *
+     * @return true, если путь назначен.
+     */
+    public boolean followPath(int index, Path path) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            Path current = paths[index];
+            double goalX = current != null ? current.getTargetX() : targetX[index];
+            double goalY = current != null ? current.getTargetY() : targetY[index];
+            if (goalX != path.getTargetX() || goalY != path.getTargetY()) {
+                return false;
+            }
+            if (current == null) {
+                pathCount++;
+            }
+            paths[index] = path;
+            waypoints[index] = 0;
+            targetX[index] = path.getX(0);
+            targetY[index] = path.getY(0);
+            for (WorldListener listener : listeners) {
+                listener.onPathAssigned(tick, index, path);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Возвращает путь, по которому следует робот, или null, если робот едет прямо к цели.
+     */
+    public Path getPath(int index) {
+        long stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return paths[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Возвращает планировщик путей этого мира; его поток создается при первом обращении.
+     */
+    public PathPlanner getPathPlanner() {
+        PathPlanner planner = pathPlanner;
+        if (planner == null) {
+            synchronized (this) {
+                planner = pathPlanner;
+                if (planner == null) {
+                    planner = new PathPlanner(this);
+                    pathPlanner = planner;
+                }
+            }
+        }
+        return planner;
+    }
+    /**
+     * Переводит робота к следующей путевой точке, если он достиг текущей промежуточной
+     * точки или уже проехал ее вдоль отрезка пути. Вызывается под блокировкой записи.
+     */
+    private void followWaypoints(int index) {
+        Path path = paths[index];
+        if (path == null) {
+            return;
+        }
+        int waypoint = waypoints[index];
+        while (waypoint < path.size() - 1) {
+            double pointX = path.getX(waypoint);
+            double pointY = path.getY(waypoint);
+            double previousX = waypoint == 0 ? path.getStartX() : path.getX(waypoint - 1);
+            double previousY = waypoint == 0 ? path.getStartY() : path.getY(waypoint - 1);
+            boolean reached = Kinematics.distance(pointX, pointY, x[index], y[index]) < WAYPOINT_DISTANCE;
+            boolean passed = (x[index] - pointX) * (pointX - previousX) + (y[index] - pointY) * (pointY - previousY) > 0;
+            if (!reached && !passed) {
+                break;
+            }
+            waypoint++;
+        }
+        if (waypoint != waypoints[index]) {
+            waypoints[index] = waypoint;
+            targetX[index] = path.getX(waypoint);
+            targetY[index] = path.getY(waypoint);
+        }
+    }
+    /**
+     * Проверяет, находится ли робот у своей цели.
+     */
+    public boolean isArrived(int index) {
+        long stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return Kinematics.distance(targetX[index], targetY[index], x[index], y[index]) < ARRIVAL_DISTANCE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Продвигает всех роботов мира на один такт указанной длительности.
+     * В режиме PARALLEL роботы делятся на части, которые считаются
+     * в общем ForkJoinPool; результат совпадает с последовательным режимом
+     * бит в бит, так как шаг каждого робота зависит только от его состояния.
+     *
+     * @return Количество роботов, которые сдвинулись за этот такт.
+     */
+    public int step(double duration) {
+        TickEvent event = new TickEvent();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            int moved;
+            boolean parallel = stepMode == StepMode.PARALLEL && size > PARALLEL_CHUNK_SIZE;
+            if (parallel) {
+                StepTask task = new StepTask(0, size, duration);
+                ForkJoinPool.commonPool().invoke(task);
+                moved = task.moved;
+            } else {
+                moved = stepRange(0, size, duration);
+            }
+            if (moved > 0) {
+                // Списки ячеек общие для всех частей, поэтому индекс обновляется после шага в одном потоке
+                for (int i = 0; i < size; i++) {
+                    grid.update(i, x[i], y[i]);
+                }
+                collisions.resolveAll(x, y, targetX, targetY, size, grid);
+            }
+            tick++;
+            if (history != null) {
+                history.record(duration, x, y, size);
+            }
+            for (WorldListener listener : listeners) {
+                listener.onStep(tick, duration);
+                if (listener.needsKeyframe(tick)) {
+                    listener.onKeyframe(tick, captureKeyframe());
+                }
+            }
+            if (event.shouldCommit()) {
+                event.tick = tick;
+                event.robots = size;
+                event.moved = moved;
+                event.index = -1;
+                event.parallel = parallel;
+                event.commit();
+            }
+            return moved;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Продвигает роботов с индексами из диапазона [from, to): встроенных - пакетно
+     * текущей реализацией MotionKernel, с подключаемой моделью - по одному.
+     */
+    private int stepRange(int from, int to, double duration) {
+        int moved = kernel.step(x, y, direction, targetX, targetY,
+                maxVelocity, maxAngularVelocity, custom, from, to, duration);
+        if (customCount > 0) {
+            for (int i = from; i < to; i++) {
+                if (custom[i] && advance(i, duration)) {
+                    moved++;
+                }
+            }
+        }
+        if (pathCount > 0) {
+            for (int i = from; i < to; i++) {
+                followWaypoints(i);
+            }
+        }
+        return moved;
+    }
+    /**
+     * Продвигает одного робота к его цели на один такт.
+     *
+     * @return false, если робот уже у цели и не двигался.
+     */
+    public boolean stepRobot(int index, double duration) {
+        TickEvent event = new TickEvent();
+        event.begin();
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            boolean moved = advance(index, duration);
+            grid.update(index, x[index], y[index]);
+            if (moved) {
+                collisions.resolve(index, x, y, targetX, targetY, size, grid);
+            }
+            followWaypoints(index);
+            for (WorldListener listener : listeners) {
+                listener.onRobotStepped(tick, index, duration);
+            }
+            if (event.shouldCommit()) {
+                event.tick = tick;
+                event.robots = 1;
+                event.moved = moved ? 1 : 0;
+                event.index = index;
+                event.commit();
+            }
+            return moved;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Шаг одного робота: выбор скоростей для движения к цели и перемещение.
+     * Вызывается под блокировкой записи, в том числе из задач параллельного шага.
+     */
+    private boolean advance(int index, double duration) {
+        double angularVelocity = scalarKernel.steer(x[index], y[index], direction[index],
+                targetX[index], targetY[index], maxAngularVelocity[index]);
+        if (Double.isNaN(angularVelocity)) {
+            return false;
+        }
+        GameModel model = models[index];
+        if (model == null) {
+            move(index, maxVelocity[index], angularVelocity, duration);
+        } else {
+            PluginMoveEvent event = new PluginMoveEvent();
+            event.begin();
+            model.moveRobot(maxVelocity[index], angularVelocity, duration);
+            if (event.shouldCommit()) {
+                event.index = index;
+                event.modelClass = model.getClass();
+                event.commit();
+            }
+            x[index] = model.getX();
+            y[index] = model.getY();
+            direction[index] = model.getDirection();
+        }
+        return true;
+    }
+    /**
+     * Строит аналитическую траекторию робота из его текущего состояния.
+     *
+     * @param tickDuration Длительность такта, на границах которого проверяется прибытие,
+     *                     как в step; 0 - непрерывная проверка.
+     * @throws IllegalStateException если у робота подключаемая модель движения.
+     */
+    public Trajectory trajectory(int index, double tickDuration) {
+        long stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return plan(index, tickDuration);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Продвигает робота на time единиц времени по аналитической траектории,
+     * без расчета отдельных тактов.
+     *
+     * @param tickDuration Длительность такта, на границах которого проверяется прибытие.
+     * @return Время, которое робот двигался: меньше time, если он прибыл раньше.
+     * @throws IllegalArgumentException если time отрицательно или бесконечно.
+     * @throws IllegalStateException если у робота подключаемая модель движения.
+     */
+    public double fastForward(int index, double time, double tickDuration) {
+        if (!(time >= 0) || Double.isInfinite(time)) {
+            throw new IllegalArgumentException("Invalid time " + time);
+        }
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            Trajectory trajectory = plan(index, tickDuration);
+            moveAlong(index, trajectory, time);
+            for (WorldListener listener : listeners) {
+                listener.onFastForward(tick, index, time, tickDuration);
+            }
+            return Math.min(time, trajectory.getArrivalTime());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Переносит робота сразу в точку прибытия по аналитической траектории.
+     *
+     * @param tickDuration Длительность такта, на границах которого проверяется прибытие.
+     * @return Время до прибытия или бесконечность, если робот не прибывает;
+     *         в этом случае робот остается на месте.
+     * @throws IllegalStateException если у робота подключаемая модель движения.
+     */
+    public double fastForwardToArrival(int index, double tickDuration) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            Trajectory trajectory = plan(index, tickDuration);
+            if (trajectory.isArriving()) {
+                moveAlong(index, trajectory, trajectory.getArrivalTime());
+                for (WorldListener listener : listeners) {
+                    listener.onFastForward(tick, index, trajectory.getArrivalTime(), tickDuration);
+                }
+            }
+            return trajectory.getArrivalTime();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Trajectory plan(int index, double tickDuration) {
+        if (custom[index]) {
+            throw new IllegalStateException("Robot " + index + " uses a plugin motion model");
+        }
+        return Trajectory.of(x[index], y[index], direction[index], targetX[index], targetY[index],
+                maxVelocity[index], maxAngularVelocity[index], tickDuration);
+    }
+
+    private void moveAlong(int index, Trajectory trajectory, double time) {
+        RobotState state = new RobotState();
+        trajectory.positionAt(time, state);
+        x[index] = state.getX();
+        y[index] = state.getY();
+        direction[index] = state.getDirection();
+        grid.update(index, x[index], y[index]);
+    }
+    /**
+     * Перемещает робота встроенной моделью движения на основе скорости и угловой скорости.
+     *
+     * @param velocity        Скорость робота.
+     * @param angularVelocity Угловая скорость робота.
+     * @param duration        Время перемещения.
+     */
+    public void moveRobot(int index, double velocity, double angularVelocity, double duration) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            move(index, velocity, angularVelocity, duration);
+            grid.update(index, x[index], y[index]);
+            collisions.resolve(index, x, y, targetX, targetY, size, grid);
+            for (WorldListener listener : listeners) {
+                listener.onRobotMoved(tick, index, velocity, angularVelocity, duration);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void move(int index, double velocity, double angularVelocity, double duration) {
+        scalarKernel.move(x, y, direction, index, velocity, angularVelocity,
+                maxVelocity[index], maxAngularVelocity[index], duration);
+    }
+    /**
+     * Задача параллельного шага: делит диапазон роботов пополам,
+     * пока он не станет меньше PARALLEL_CHUNK_SIZE. Границы частей кратны
+     * PARALLEL_CHUNK_SIZE, а значит и ширине вектора, поэтому пакетная реализация
+     * считает каждого робота тем же путем (векторная полоса или скалярный остаток),
+     * что и в последовательном режиме.
+     */
+    private final class StepTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final double duration;
+        private int moved;
+
+        StepTask(int from, int to, double duration) {
+            this.from = from;
+            this.to = to;
+            this.duration = duration;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK_SIZE) {
+                moved = stepRange(from, to, duration);
+                return;
+            }
+            int middle = from + Math.max((to - from) / 2 / PARALLEL_CHUNK_SIZE, 1) * PARALLEL_CHUNK_SIZE;
+            StepTask left = new StepTask(from, middle, duration);
+            StepTask right = new StepTask(middle, to, duration);
+            left.fork();
+            right.compute();
+            left.join();
+            moved = left.moved + right.moved;
+        }
+    }
+    /**
+     * Копирует согласованное состояние одного робота на момент между тактами.
+     * Не создает объектов, поэтому подходит для вызова на каждом кадре или такте.
+     */
+    public void readState(int index, RobotState state) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            // Массивы могут быть заменены при росте мира, поэтому берем ссылки один раз
+            double[] xs = x;
+            double[] ys = y;
+            double[] directions = direction;
+            double[] targetXs = targetX;
+            double[] targetYs = targetY;
+            if (index >= 0 && index < size && index < xs.length && index < ys.length
+                    && index < directions.length && index < targetXs.length && index < targetYs.length) {
+                state.set(xs[index], ys[index], directions[index], targetXs[index], targetYs[index]);
+                if (lock.validate(stamp)) {
+                    return;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            state.set(x[index], y[index], direction[index], targetX[index], targetY[index]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Копирует согласованное состояние всех роботов в переданный снимок,
+     * переиспользуя его массивы. Сначала копирование выполняется оптимистично,
+     * и только если в это время шел шаг, повторяется под блокировкой чтения.
+     */
+    public void snapshot(WorldSnapshot snapshot) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            double[] xs = x;
+            double[] ys = y;
+            double[] directions = direction;
+            double[] targetXs = targetX;
+            double[] targetYs = targetY;
+            int count = size;
+            if (count <= xs.length && count <= ys.length && count <= directions.length
+                    && count <= targetXs.length && count <= targetYs.length) {
+                snapshot.copyFrom(count, xs, ys, directions, targetXs, targetYs);
+                if (lock.validate(stamp)) {
+                    return;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            snapshot.copyFrom(size, x, y, direction, targetX, targetY);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Копирует в снимок состояние роботов внутри прямоугольника, например видимой
+     * части мира. Роботы выбираются через пространственный индекс, поэтому время
+     * зависит от числа роботов в прямоугольнике, а не от размера мира.
+     */
+    public void snapshot(WorldSnapshot snapshot, double minX, double minY, double maxX, double maxY) {
+        long stamp = lock.readLock();
+        try {
+            int[] indices = snapshot.indexBuffer(0);
+            int found = grid.findInRect(x, y, size, minX, minY, maxX, maxY, indices);
+            if (found > indices.length) {
+                indices = snapshot.indexBuffer(found);
+                found = grid.findInRect(x, y, size, minX, minY, maxX, maxY, indices);
+            }
+            snapshot.copySelected(found, x, y, direction, targetX, targetY);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Находит роботов на расстоянии не больше radius от точки.
+     * Индексы записываются в result, пока в нем есть место, поэтому переиспользуемый
+     * массив позволяет выполнять запрос без создания объектов.
+     *
+     * @return Число найденных роботов; может быть больше длины result.
+     */
+    public int findNear(double x, double y, double radius, int[] result) {
+        long stamp = lock.readLock();
+        try {
+            return grid.findNear(this.x, this.y, size, x, y, radius, -1, result);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Находит соседей робота на расстоянии не больше radius, не считая его самого.
+     *
+     * @return Число найденных соседей; может быть больше длины result.
+     */
+    public int findNeighbours(int index, double radius, int[] result) {
+        long stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return grid.findNear(x, y, size, x[index], y[index], radius, index, result);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Находит ближайшего к точке робота не дальше maxDistance.
+     *
+     * @return Индекс робота или -1, если такого нет.
+     */
+    public int findNearest(double x, double y, double maxDistance) {
+        long stamp = lock.readLock();
+        try {
+            return grid.nearest(this.x, this.y, size, x, y, maxDistance);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Задает режим обработки столкновений. Столкновения разбираются после каждого такта
+     * в одном потоке, в том числе в режиме PARALLEL. Роботы с подключаемой моделью
+     * сдвигаются только в мире: модель плагина, которая хранит позицию сама,
+     * на следующем такте вернет робота на свою позицию.
+     */
+    public void setCollisionMode(CollisionMode mode) {
+        long stamp = lock.writeLock();
+        try {
+            collisions.setMode(mode);
+            settingsChanged();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public CollisionMode getCollisionMode() {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getMode();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Задает радиус робота для обработки столкновений.
+     */
+    public void setRobotRadius(double radius) {
+        long stamp = lock.writeLock();
+        try {
+            collisions.setRobotRadius(radius);
+            obstacleVersion++;
+            settingsChanged();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public double getRobotRadius() {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getRobotRadius();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Добавляет неподвижное круглое препятствие.
+     *
+     * @return Индекс препятствия.
+     */
+    public int addObstacle(double x, double y, double radius) {
+        long stamp = lock.writeLock();
+        try {
+            int index = collisions.addObstacle(x, y, radius);
+            obstacleVersion++;
+            for (WorldListener listener : listeners) {
+                listener.onObstacleAdded(tick, x, y, radius);
+            }
+            return index;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int getObstacleCount() {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getObstacleCount();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Возвращает версию препятствий и радиуса робота; она меняется при добавлении
+     * препятствия, смене радиуса и восстановлении состояния.
+     */
+    long getObstacleVersion() {
+        long stamp = lock.readLock();
+        try {
+            return obstacleVersion;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public double getObstacleX(int index) {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getObstacleX(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public double getObstacleY(int index) {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getObstacleY(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public double getObstacleRadius(int index) {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getObstacleRadius(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Возвращает число касаний, исправленных за последний такт.
+     */
+    public int getLastContacts() {
+        long stamp = lock.readLock();
+        try {
+            return collisions.getContacts();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Задает сторону ячейки пространственного индекса и перестраивает его.
+     * Запросы быстрее всего, когда радиус запроса сравним со стороной ячейки.
+     */
+    public void setCellSize(double cellSize) {
+        long stamp = lock.writeLock();
+        try {
+            SpatialGrid rebuilt = new SpatialGrid(cellSize, x.length);
+            for (int i = 0; i < size; i++) {
+                rebuilt.insert(i, x[i], y[i]);
+            }
+            grid = rebuilt;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public double getCellSize() {
+        long stamp = lock.readLock();
+        try {
+            return grid.getCellSize();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Читает одно значение состояния робота оптимистично, при конфликте с записью - под блокировкой.
+     */
+    private double read(int index, int column) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            double[] values = column(column);
+            if (index >= 0 && index < size && index < values.length) {
+                double value = values[index];
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return column(column)[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private double[] column(int column) {
+        return switch (column) {
+            case X -> x;
+            case Y -> y;
+            case DIRECTION -> direction;
+            case TARGET_X -> targetX;
+            case TARGET_Y -> targetY;
+            case MAX_VELOCITY -> maxVelocity;
+            case MAX_ANGULAR_VELOCITY -> maxAngularVelocity;
+            default -> throw new IllegalArgumentException("Unknown column " + column);
+        };
+    }
+    /**
+     * Подключает историю траекторий роботов, которая пополняется после каждого такта step;
+     * null отключает ее.
+     */
+    public void setTrajectoryHistory(TrajectoryHistory history) {
+        long stamp = lock.writeLock();
+        try {
+            this.history = history;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public TrajectoryHistory getTrajectoryHistory() {
+        return history;
+    }
+    /**
+     * Возвращает число тактов, выполненных методом step.
+     */
+    public long getTick() {
+        long stamp = lock.tryOptimisticRead();
+        long result = tick;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = tick;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+    /**
+     * Добавляет слушателя изменений мира. Слушатель сразу получает опорный кадр
+     * с текущим состоянием, поэтому ни одно изменение не попадает между ними.
+     */
+    public void addWorldListener(WorldListener listener) {
+        long stamp = lock.writeLock();
+        try {
+            listeners = Arrays.copyOf(listeners, listeners.length + 1);
+            listeners[listeners.length - 1] = listener;
+            listener.onKeyframe(tick, captureKeyframe());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Удаляет слушателя изменений мира.
+     */
+    public void removeWorldListener(WorldListener listener) {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i] == listener) {
+                    WorldListener[] copy = new WorldListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, copy, 0, i);
+                    System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+                    listeners = copy;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Передает слушателям опорный кадр после смены настроек, влияющих на расчет.
+     * Вызывается под блокировкой записи.
+     */
+    private void settingsChanged() {
+        for (WorldListener listener : listeners) {
+            listener.onKeyframe(tick, captureKeyframe());
+        }
+    }
+
+    private WorldState captureKeyframe() {
+        if (keyframe == null) {
+            keyframe = new WorldState();
+        }
+        fillState(keyframe);
+        return keyframe;
+    }
+    /**
+     * Копирует полное состояние мира в переданный объект, переиспользуя его массивы.
+     */
+    public void captureState(WorldState state) {
+        long stamp = lock.readLock();
+        try {
+            fillState(state);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void fillState(WorldState state) {
+        int obstacles = collisions.getObstacleCount();
+        state.resize(size, obstacles);
+        state.setTick(tick);
+        System.arraycopy(x, 0, state.getXs(), 0, size);
+        System.arraycopy(y, 0, state.getYs(), 0, size);
+        System.arraycopy(direction, 0, state.getDirections(), 0, size);
+        System.arraycopy(targetX, 0, state.getTargetXs(), 0, size);
+        System.arraycopy(targetY, 0, state.getTargetYs(), 0, size);
+        System.arraycopy(maxVelocity, 0, state.getMaxVelocities(), 0, size);
+        System.arraycopy(maxAngularVelocity, 0, state.getMaxAngularVelocities(), 0, size);
+        System.arraycopy(paths, 0, state.getPaths(), 0, size);
+        System.arraycopy(waypoints, 0, state.getWaypoints(), 0, size);
+        for (int i = 0; i < obstacles; i++) {
+            state.getObstacleXs()[i] = collisions.getObstacleX(i);
+            state.getObstacleYs()[i] = collisions.getObstacleY(i);
+            state.getObstacleRadii()[i] = collisions.getObstacleRadius(i);
+        }
+        state.setCollisionMode(collisions.getMode());
+        state.setRobotRadius(collisions.getRobotRadius());
+        state.setMotionKernel(kernelType);
+        state.setMathBackend(mathBackend);
+    }
+    /**
+     * Заменяет состояние мира сохраненным: роботы, пути, препятствия, настройки
+     * расчета и номер такта берутся из state. Все роботы получают встроенную модель
+     * движения; представления RobotModel остаются действительными для индексов,
+     * которые есть в новом состоянии. Слушатели получают опорный кадр.
+     */
+    public void restoreState(WorldState state) {
+        long stamp = lock.writeLock();
+        try {
+            int count = state.size();
+            ensureCapacity(count);
+            System.arraycopy(state.getXs(), 0, x, 0, count);
+            System.arraycopy(state.getYs(), 0, y, 0, count);
+            System.arraycopy(state.getDirections(), 0, direction, 0, count);
+            System.arraycopy(state.getTargetXs(), 0, targetX, 0, count);
+            System.arraycopy(state.getTargetYs(), 0, targetY, 0, count);
+            System.arraycopy(state.getMaxVelocities(), 0, maxVelocity, 0, count);
+            System.arraycopy(state.getMaxAngularVelocities(), 0, maxAngularVelocity, 0, count);
+            System.arraycopy(state.getPaths(), 0, paths, 0, count);
+            System.arraycopy(state.getWaypoints(), 0, waypoints, 0, count);
+            Arrays.fill(models, null);
+            Arrays.fill(custom, false);
+            Arrays.fill(paths, count, paths.length, null);
+            customCount = 0;
+            pathCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (paths[i] != null) {
+                    pathCount++;
+                }
+            }
+            size = count;
+            SpatialGrid rebuilt = new SpatialGrid(grid.getCellSize(), x.length);
+            for (int i = 0; i < size; i++) {
+                rebuilt.insert(i, x[i], y[i]);
+            }
+            grid = rebuilt;
+            collisions.clearObstacles();
+            for (int i = 0; i < state.getObstacleCount(); i++) {
+                collisions.addObstacle(state.getObstacleXs()[i], state.getObstacleYs()[i],
+                        state.getObstacleRadii()[i]);
+            }
+            collisions.setMode(state.getCollisionMode());
+            collisions.setRobotRadius(state.getRobotRadius());
+            obstacleVersion++;
+            mathBackend = state.getMathBackend();
+            scalarKernel = ScalarMotionKernel.of(mathBackend);
+            MotionKernel created = state.getMotionKernel().createKernel(mathBackend);
+            kernel = created;
+            kernelType = created instanceof ScalarMotionKernel ? MotionKernelType.SCALAR : state.getMotionKernel();
+            tick = state.getTick();
+            if (history != null) {
+                history.clear();
+            }
+            settingsChanged();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Устанавливает режим шага: последовательный или параллельный.
+     * Подключаемые модели движения в параллельном режиме вызываются из разных потоков,
+     * поэтому у каждого робота должен быть свой экземпляр модели.
+     */
+    public void setStepMode(StepMode stepMode) {
+        this.stepMode = stepMode;
+    }
+
+    public StepMode getStepMode() {
+        return stepMode;
+    }
+    /**
+     * Выбирает реализацию пакетного такта. Если запрошен VECTOR, а модуль
+     * jdk.incubator.vector не подключен, используется SCALAR.
+     */
+    public void setMotionKernel(MotionKernelType type) {
+        long stamp = lock.writeLock();
+        try {
+            MotionKernel created = type.createKernel(mathBackend);
+            kernel = created;
+            kernelType = created instanceof ScalarMotionKernel ? MotionKernelType.SCALAR : type;
+            settingsChanged();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    /**
+     * Возвращает реализацию пакетного такта, которая действительно используется.
+     */
+    public MotionKernelType getMotionKernel() {
+        return kernelType;
+    }
+    /**
+     * Выбирает тригонометрию для скалярного расчета движения.
+     * По умолчанию используется точная MathBackend.EXACT.
+     */
+    public void setMathBackend(MathBackend backend) {
+        long stamp = lock.writeLock();
+        try {
+            mathBackend = backend;
+            scalarKernel = ScalarMotionKernel.of(backend);
+            MotionKernel created = kernelType.createKernel(backend);
+            kernel = created;
+            settingsChanged();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public MathBackend getMathBackend() {
+        return mathBackend;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    public double getX(int index) {
+        return read(index, X);
+    }
+
+    public double getY(int index) {
+        return read(index, Y);
+    }
+
+    public double getDirection(int index) {
+        return read(index, DIRECTION);
+    }
+
+    public double getTargetX(int index) {
+        return read(index, TARGET_X);
+    }
+
+    public double getTargetY(int index) {
+        return read(index, TARGET_Y);
+    }
+
+    public double getMaxVelocity(int index) {
+        return read(index, MAX_VELOCITY);
+    }
+
+    public double getMaxAngularVelocity(int index) {
+        return read(index, MAX_ANGULAR_VELOCITY);
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+/**
+ * Скалярная реализация пакетного такта: роботы считаются по одному.
+ * С MathBackend.EXACT это эталон, с которым сверяются остальные реализации;
+ * с MathBackend.FAST тригонометрия считается приближенно.
+ */
+final class ScalarMotionKernel implements MotionKernel {
+    static final ScalarMotionKernel EXACT = new ScalarMotionKernel(MathBackend.EXACT);
+    static final ScalarMotionKernel FAST = new ScalarMotionKernel(MathBackend.FAST);
+    private final MathBackend math;
+
+    private ScalarMotionKernel(MathBackend math) {
+        this.math = math;
+    }
+    /**
+     * Возвращает скалярную реализацию с указанной тригонометрией.
+     */
+    static ScalarMotionKernel of(MathBackend math) {
+        return math == MathBackend.FAST ? FAST : EXACT;
+    }
+
+    @Override
+    public int step(double[] x, double[] y, double[] direction,
+                    double[] targetX, double[] targetY,
+                    double[] maxVelocity, double[] maxAngularVelocity,
+                    boolean[] custom, int from, int to, double duration) {
+        int moved = 0;
+        for (int i = from; i < to; i++) {
+            if (custom[i]) {
+                continue;
+            }
+            double angularVelocity = steer(x[i], y[i], direction[i],
+                    targetX[i], targetY[i], maxAngularVelocity[i]);
+            if (Double.isNaN(angularVelocity)) {
+                continue;
+            }
+            move(x, y, direction, i, maxVelocity[i], angularVelocity,
+                    maxVelocity[i], maxAngularVelocity[i], duration);
+            moved++;
+        }
+        return moved;
+    }
+    /**
+     * Выбирает угловую скорость для поворота к цели: максимальную в сторону
+     * меньшего угла. Возвращает NaN, если робот уже у цели.
+     */
+    double steer(double x, double y, double direction,
+                 double targetX, double targetY, double maxAngularVelocity) {
+        if (Kinematics.distance(targetX, targetY, x, y) < RobotWorld.ARRIVAL_DISTANCE) {
+            return Double.NaN;
+        }
+        double angleToTarget = Kinematics.asNormalizedRadians(math.atan2(targetY - y, targetX - x));
+        double angleDifference = Kinematics.asNormalizedRadians(angleToTarget - direction);
+        return (angleDifference <= Math.PI) ? maxAngularVelocity : -maxAngularVelocity;
+    }
+    /**
+     * Перемещает робота с индексом i по дуге (или по прямой при нулевой
+     * угловой скорости) с ограничением скоростей.
+     */
+    void move(double[] x, double[] y, double[] direction, int i,
+              double velocity, double angularVelocity,
+              double maxVelocity, double maxAngularVelocity, double duration) {
+        velocity = Kinematics.applyLimits(velocity, 0, maxVelocity);
+        angularVelocity = Kinematics.applyLimits(angularVelocity, -maxAngularVelocity, maxAngularVelocity);
+        double oldX = x[i];
+        double oldY = y[i];
+        double oldDirection = direction[i];
+        double newX = oldX + velocity / angularVelocity *
+                (math.sin(oldDirection + angularVelocity * duration) -
+                        math.sin(oldDirection));
+        if (!Double.isFinite(newX))
+        {
+            newX = oldX + velocity * duration * math.cos(oldDirection);
+        }
+        double newY = oldY - velocity / angularVelocity *
+                (math.cos(oldDirection + angularVelocity * duration) -
+                        math.cos(oldDirection));
+        if (!Double.isFinite(newY))
+        {
+            newY = oldY + velocity * duration * math.sin(oldDirection);
+        }
+        x[i] = newX;
+        y[i] = newY;
+        direction[i] = Kinematics.asNormalizedRadians(oldDirection + angularVelocity * duration);
+    }
+}
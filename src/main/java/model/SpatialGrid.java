@@ -0,0 +1,270 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * Пространственный индекс роботов мира: равномерная сетка с хешированием ячеек.
+ * Каждая ячейка - квадрат со стороной cellSize; роботы одной корзины хеш-таблицы
+ * связаны в двусвязный список на примитивных массивах, поэтому переход робота
+ * в другую ячейку выполняется за O(1) без создания объектов. Мир не ограничен
+ * по размеру: ячейки с разными координатами могут попасть в одну корзину,
+ * и запросы отбрасывают чужих роботов по координатам ячейки.
+ * <p>
+ * Не потокобезопасен; RobotWorld вызывает его под своей блокировкой.
+ */
+final class SpatialGrid {
+    /**
+     * Сторона ячейки по умолчанию
+     */
+    static final double DEFAULT_CELL_SIZE = 32;
+    private static final int EMPTY = -1;
+    private final double cellSize;
+    private int[] heads;
+    private int mask;
+    private int[] next;
+    private int[] previous;
+    private int[] cellX;
+    private int[] cellY;
+
+    SpatialGrid(double cellSize, int capacity) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Invalid cell size " + cellSize);
+        }
+        this.cellSize = cellSize;
+        next = new int[capacity];
+        previous = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        allocateBuckets(capacity);
+    }
+
+    double getCellSize() {
+        return cellSize;
+    }
+    /**
+     * Увеличивает индекс до указанного числа роботов. Число корзин растет вместе
+     * с числом роботов, поэтому уже добавленные роботы раскладываются заново.
+     */
+    void ensureCapacity(int capacity, double[] x, double[] y, int size) {
+        if (capacity <= next.length) {
+            return;
+        }
+        next = Arrays.copyOf(next, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        cellX = Arrays.copyOf(cellX, capacity);
+        cellY = Arrays.copyOf(cellY, capacity);
+        allocateBuckets(capacity);
+        for (int i = 0; i < size; i++) {
+            insert(i, x[i], y[i]);
+        }
+    }
+
+    private void allocateBuckets(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1);
+        heads = new int[Math.max(buckets, 16)];
+        Arrays.fill(heads, EMPTY);
+        mask = heads.length - 1;
+    }
+    /**
+     * Добавляет робота с указанным индексом в ячейку его позиции.
+     */
+    void insert(int index, double x, double y) {
+        int cx = cell(x);
+        int cy = cell(y);
+        cellX[index] = cx;
+        cellY[index] = cy;
+        link(index, bucket(cx, cy));
+    }
+    /**
+     * Переносит робота в ячейку новой позиции, если он ее сменил.
+     */
+    void update(int index, double x, double y) {
+        int cx = cell(x);
+        int cy = cell(y);
+        if (cx == cellX[index] && cy == cellY[index]) {
+            return;
+        }
+        unlink(index, bucket(cellX[index], cellY[index]));
+        cellX[index] = cx;
+        cellY[index] = cy;
+        link(index, bucket(cx, cy));
+    }
+
+    private void link(int index, int bucket) {
+        int head = heads[bucket];
+        next[index] = head;
+        previous[index] = EMPTY;
+        if (head != EMPTY) {
+            previous[head] = index;
+        }
+        heads[bucket] = index;
+    }
+
+    private void unlink(int index, int bucket) {
+        int before = previous[index];
+        int after = next[index];
+        if (before != EMPTY) {
+            next[before] = after;
+        } else {
+            heads[bucket] = after;
+        }
+        if (after != EMPTY) {
+            previous[after] = before;
+        }
+    }
+    /**
+     * Находит роботов на расстоянии не больше radius от точки, кроме робота exclude.
+     * Индексы записываются в result, пока в нем есть место.
+     *
+     * @return Число найденных роботов; может быть больше длины result.
+     */
+    int findNear(double[] xs, double[] ys, int size, double x, double y, double radius,
+                 int exclude, int[] result) {
+        if (!(radius >= 0)) {
+            return 0;
+        }
+        double radiusSquared = radius * radius;
+        int fromX = cell(x - radius);
+        int toX = cell(x + radius);
+        int fromY = cell(y - radius);
+        int toY = cell(y + radius);
+        int found = 0;
+        if (((long) toX - fromX + 1) * ((long) toY - fromY + 1) > size) {
+            // Ячеек больше, чем роботов: полный просмотр дешевле
+            for (int i = 0; i < size; i++) {
+                if (i != exclude && distanceSquared(xs[i], ys[i], x, y) <= radiusSquared) {
+                    found = add(result, found, i);
+                }
+            }
+            return found;
+        }
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cy = fromY; cy <= toY; cy++) {
+                for (int i = heads[bucket(cx, cy)]; i != EMPTY; i = next[i]) {
+                    if (cellX[i] == cx && cellY[i] == cy && i != exclude
+                            && distanceSquared(xs[i], ys[i], x, y) <= radiusSquared) {
+                        found = add(result, found, i);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Находит роботов внутри прямоугольника, включая границы.
+     * Индексы записываются в result, пока в нем есть место.
+     *
+     * @return Число найденных роботов; может быть больше длины result.
+     */
+    int findInRect(double[] xs, double[] ys, int size, double minX, double minY, double maxX, double maxY,
+                   int[] result) {
+        if (!(minX <= maxX) || !(minY <= maxY)) {
+            return 0;
+        }
+        int fromX = cell(minX);
+        int toX = cell(maxX);
+        int fromY = cell(minY);
+        int toY = cell(maxY);
+        int found = 0;
+        if (((long) toX - fromX + 1) * ((long) toY - fromY + 1) > size) {
+            // Ячеек больше, чем роботов: полный просмотр дешевле
+            for (int i = 0; i < size; i++) {
+                if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) {
+                    found = add(result, found, i);
+                }
+            }
+            return found;
+        }
+        for (int cx = fromX; cx <= toX; cx++) {
+            boolean insideX = cx > fromX && cx < toX;
+            for (int cy = fromY; cy <= toY; cy++) {
+                boolean inside = insideX && cy > fromY && cy < toY;
+                for (int i = heads[bucket(cx, cy)]; i != EMPTY; i = next[i]) {
+                    if (cellX[i] == cx && cellY[i] == cy && (inside
+                            || (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY))) {
+                        found = add(result, found, i);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int add(int[] result, int found, int index) {
+        if (found < result.length) {
+            result[found] = index;
+        }
+        return found + 1;
+    }
+    /**
+     * Находит ближайшего к точке робота не дальше maxDistance. Ячейки просматриваются
+     * кольцами от ячейки точки, пока следующее кольцо не может содержать робота ближе найденного.
+     * При равных расстояниях выбирается робот с меньшим индексом.
+     *
+     * @return Индекс робота или -1, если такого нет.
+     */
+    int nearest(double[] xs, double[] ys, int size, double x, double y, double maxDistance) {
+        if (size == 0 || !(maxDistance >= 0)) {
+            return EMPTY;
+        }
+        int centerX = cell(x);
+        int centerY = cell(y);
+        int best = EMPTY;
+        double bestDistance = maxDistance * maxDistance;
+        long visited = 0;
+        for (int ring = 0; ; ring++) {
+            double ringDistance = (ring - 1) * cellSize;
+            if (ring > 0 && (ringDistance > maxDistance || (best != EMPTY && ringDistance * ringDistance > bestDistance))) {
+                return best;
+            }
+            visited += ring == 0 ? 1 : 8L * ring;
+            if (visited > size) {
+                return nearestByScan(xs, ys, size, x, y, maxDistance);
+            }
+            for (int cx = centerX - ring; cx <= centerX + ring; cx++) {
+                boolean edge = cx == centerX - ring || cx == centerX + ring;
+                int step = edge ? 1 : 2 * ring;
+                for (int cy = centerY - ring; cy <= centerY + ring; cy += step) {
+                    for (int i = heads[bucket(cx, cy)]; i != EMPTY; i = next[i]) {
+                        if (cellX[i] != cx || cellY[i] != cy) {
+                            continue;
+                        }
+                        double distance = distanceSquared(xs[i], ys[i], x, y);
+                        if (distance < bestDistance || (distance == bestDistance && (best == EMPTY || i < best))) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int nearestByScan(double[] xs, double[] ys, int size, double x, double y, double maxDistance) {
+        int best = EMPTY;
+        double bestDistance = maxDistance * maxDistance;
+        for (int i = 0; i < size; i++) {
+            double distance = distanceSquared(xs[i], ys[i], x, y);
+            if (distance < bestDistance || (distance == bestDistance && best == EMPTY)) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int bucket(int cx, int cy) {
+        int hash = cx * 0x9E3779B1 + cy * 0x85EBCA77;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static double distanceSquared(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,33 @@
+package model;
+/**
+ * Режим продвижения роботов мира за один такт.
+ */
+public enum StepMode {
+    /**
+     * Все роботы считаются по очереди в вызывающем потоке.
+     */
+    SEQUENTIAL,
+    /**
+     * Роботы делятся на части, которые считаются параллельно в ForkJoinPool.
+     */
+    PARALLEL;
+    /**
+     * Системное свойство, задающее режим по умолчанию
+     */
+    public static final String PROPERTY = "robots.stepMode";
+    /**
+     * Возвращает режим, указанный в системном свойстве robots.stepMode,
+     * или SEQUENTIAL, если свойство не задано или содержит неизвестное значение.
+     */
+    public static StepMode fromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (StepMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return SEQUENTIAL;
+    }
+}
@@ -0,0 +1,225 @@
+package model;
+/**
+ * Аналитическая траектория робота со встроенной моделью движения.
+ * Встроенная модель поворачивает с максимальной угловой скоростью в сторону меньшего угла
+ * до цели, пока не окажется у цели. В непрерывном времени это дуга окружности радиуса
+ * v/ω до точки касания, из которой цель видна прямо по курсу, и затем отрезок прямой
+ * до расстояния ARRIVAL_DISTANCE от цели. Если цель лежит внутри окружности поворота,
+ * робот кружит по ней бесконечно и не прибывает.
+ * <p>
+ * Траектория позволяет получить время прибытия и положение в любой момент без расчета тактов.
+ * Потактовый расчет проверяет прибытие только на границах тактов, поэтому робот может
+ * проскочить цель, которую дуга задевает краем; если задана длительность такта, прибытие
+ * на дуге тоже проверяется только в моменты, кратные такту. После выхода на прямую
+ * потактовый робот поворачивает то в одну, то в другую сторону, а поворот в конце дуги
+ * заканчивается с перелетом до одного шага поворота. Поэтому время прибытия совпадает
+ * с потактовым с точностью до ARRIVAL_TICKS тактов, а положение - с точностью
+ * до POSITION_TOLERANCE_STEPS длин шага v * такт.
+ */
+public final class Trajectory {
+    /**
+     * Допустимое отличие времени прибытия от потактового расчета, в тактах
+     */
+    public static final int ARRIVAL_TICKS = 2;
+    /**
+     * Допустимое отличие положения от потактового расчета, в длинах шага робота за такт
+     */
+    public static final double POSITION_TOLERANCE_STEPS = 2;
+    private final double startX;
+    private final double startY;
+    private final double startDirection;
+    private final double targetX;
+    private final double targetY;
+    private final double velocity;
+    /**
+     * Угловая скорость на дуге со знаком стороны поворота
+     */
+    private final double angularVelocity;
+    private final double centerX;
+    private final double centerY;
+    /**
+     * Длительность дуги; бесконечна, если робот кружит вокруг цели
+     */
+    private final double turnDuration;
+    private final double arrivalTime;
+    /**
+     * Наибольшее число оборотов, в течение которых ищется такт прибытия на дуге
+     */
+    private static final int MAX_LAPS = 10_000;
+
+    private Trajectory(double startX, double startY, double startDirection,
+                       double targetX, double targetY, double velocity, double angularVelocity,
+                       double turnDuration, double arrivalTime) {
+        this.startX = startX;
+        this.startY = startY;
+        this.startDirection = startDirection;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.velocity = velocity;
+        this.angularVelocity = angularVelocity;
+        double radius = angularVelocity == 0 ? 0 : velocity / angularVelocity;
+        this.centerX = startX - radius * Math.sin(startDirection);
+        this.centerY = startY + radius * Math.cos(startDirection);
+        this.turnDuration = turnDuration;
+        this.arrivalTime = arrivalTime;
+    }
+    /**
+     * Строит траекторию из текущего состояния робота встроенной модели.
+     *
+     * @param tickDuration Длительность такта, на границах которого проверяется прибытие
+     *                     на дуге, как в RobotWorld.step; 0 - непрерывная проверка.
+     */
+    public static Trajectory of(double x, double y, double direction, double targetX, double targetY,
+                                double maxVelocity, double maxAngularVelocity, double tickDuration) {
+        double velocity = Math.max(maxVelocity, 0);
+        double omega = Math.max(maxAngularVelocity, 0);
+        double distance = Kinematics.distance(targetX, targetY, x, y);
+        if (distance < RobotWorld.ARRIVAL_DISTANCE) {
+            return new Trajectory(x, y, direction, targetX, targetY, velocity, 0, 0, 0);
+        }
+        double bearing = Kinematics.asNormalizedRadians(
+                Kinematics.asNormalizedRadians(Math.atan2(targetY - y, targetX - x)) - direction);
+        double side = bearing <= Math.PI ? 1 : -1;
+        if (omega == 0) {
+            return straight(x, y, direction, targetX, targetY, velocity);
+        }
+        double radius = velocity / omega;
+        double centerX = x - side * radius * Math.sin(direction);
+        double centerY = y + side * radius * Math.cos(direction);
+        double centerDistance = Kinematics.distance(targetX, targetY, centerX, centerY);
+        double centerAngle = Math.atan2(targetY - centerY, targetX - centerX);
+
+        double tangentDirection = centerAngle + side * (Math.PI / 2 - Math.acos(Math.min(radius / centerDistance, 1)));
+        double turn = Kinematics.asNormalizedRadians(side * (tangentDirection - direction));
+        if (turn > 2 * Math.PI - 1e-9) {
+            // Робот уже смотрит на цель, разность углов ушла за ноль из-за округления
+            turn = 0;
+        }
+        double maxTurn = centerDistance <= radius ? Double.POSITIVE_INFINITY : turn;
+
+        double arcArrival = Double.POSITIVE_INFINITY;
+        if (Math.abs(centerDistance - radius) < RobotWorld.ARRIVAL_DISTANCE && radius > 0) {
+            // Дуга проходит ближе ARRIVAL_DISTANCE к цели: точки дуги на расстоянии прибытия
+            // лежат на угле spread по обе стороны от ближайшей к цели точки
+            double cos = (radius * radius + centerDistance * centerDistance
+                    - RobotWorld.ARRIVAL_DISTANCE * RobotWorld.ARRIVAL_DISTANCE)
+                    / (2 * radius * centerDistance);
+            double spread = Math.acos(Kinematics.applyLimits(cos, -1, 1));
+            double startAngle = Math.atan2(y - centerY, x - centerX);
+            double closest = Kinematics.asNormalizedRadians(side * (centerAngle - startAngle));
+            if (closest - spread < 0) {
+                closest += 2 * Math.PI;
+            }
+            arcArrival = arcArrivalTurn(closest - spread, closest + spread, maxTurn,
+                    omega * tickDuration) / omega;
+        }
+        if (centerDistance <= radius) {
+            return new Trajectory(x, y, direction, targetX, targetY, velocity, side * omega,
+                    Double.POSITIVE_INFINITY, arcArrival);
+        }
+        double turnDuration = turn / omega;
+        double straightLength = Math.sqrt(centerDistance * centerDistance - radius * radius);
+        double arrivalTime = velocity > 0
+                ? turnDuration + Math.max(straightLength - RobotWorld.ARRIVAL_DISTANCE, 0) / velocity
+                : Double.POSITIVE_INFINITY;
+        if (tickDuration > 0 && arrivalTime != Double.POSITIVE_INFINITY) {
+            // Потактовый робот останавливается на первой границе такта внутри круга прибытия
+            double ticked = (Math.floor(arrivalTime / tickDuration) + 1) * tickDuration;
+            if (velocity * (ticked - arrivalTime) < 2 * RobotWorld.ARRIVAL_DISTANCE) {
+                arrivalTime = ticked;
+            }
+        }
+        return new Trajectory(x, y, direction, targetX, targetY, velocity, side * omega,
+                turnDuration, Math.min(arcArrival, arrivalTime));
+    }
+    /**
+     * Находит поворот, на котором робот впервые оказывается у цели на дуге: первый угол
+     * из окна [enter, leave] (повторяющегося через оборот), кратный шагу поворота за такт.
+     *
+     * @return Угол поворота или бесконечность, если до maxTurn робот окна не достигает.
+     */
+    private static double arcArrivalTurn(double enter, double leave, double maxTurn, double tickTurn) {
+        if (tickTurn <= 0) {
+            return enter <= maxTurn ? enter : Double.POSITIVE_INFINITY;
+        }
+        for (int lap = 0; lap < MAX_LAPS; lap++) {
+            double from = enter + 2 * Math.PI * lap;
+            if (from > maxTurn) {
+                break;
+            }
+            double turn = Math.max(1, Math.ceil(from / tickTurn)) * tickTurn;
+            if (turn <= leave + 2 * Math.PI * lap && turn <= maxTurn) {
+                return turn;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+    /**
+     * Траектория без поворота: робот едет прямо по текущему курсу.
+     */
+    private static Trajectory straight(double x, double y, double direction,
+                                       double targetX, double targetY, double velocity) {
+        double along = (targetX - x) * Math.cos(direction) + (targetY - y) * Math.sin(direction);
+        double across = -(targetX - x) * Math.sin(direction) + (targetY - y) * Math.cos(direction);
+        double halfChord = RobotWorld.ARRIVAL_DISTANCE * RobotWorld.ARRIVAL_DISTANCE - across * across;
+        double arrivalTime = Double.POSITIVE_INFINITY;
+        if (velocity > 0 && halfChord > 0 && along - Math.sqrt(halfChord) >= 0) {
+            arrivalTime = (along - Math.sqrt(halfChord)) / velocity;
+        }
+        return new Trajectory(x, y, direction, targetX, targetY, velocity, 0, 0, arrivalTime);
+    }
+    /**
+     * Записывает в state положение и направление робота через time единиц времени
+     * от начала траектории. После прибытия робот остается в точке прибытия.
+     */
+    public void positionAt(double time, RobotState state) {
+        double t = Math.min(Math.max(time, 0), arrivalTime);
+        if (t <= turnDuration) {
+            double heading = startDirection + angularVelocity * t;
+            if (angularVelocity == 0) {
+                state.set(startX, startY, Kinematics.asNormalizedRadians(heading), targetX, targetY);
+                return;
+            }
+            double radius = velocity / angularVelocity;
+            state.set(centerX + radius * Math.sin(heading), centerY - radius * Math.cos(heading),
+                    Kinematics.asNormalizedRadians(heading), targetX, targetY);
+            return;
+        }
+        double heading = startDirection + angularVelocity * turnDuration;
+        double radius = angularVelocity == 0 ? 0 : velocity / angularVelocity;
+        double distance = velocity * (t - turnDuration);
+        state.set(centerX + radius * Math.sin(heading) + distance * Math.cos(heading),
+                centerY - radius * Math.cos(heading) + distance * Math.sin(heading),
+                Kinematics.asNormalizedRadians(heading), targetX, targetY);
+    }
+    /**
+     * Прибывает ли робот к цели по этой траектории.
+     */
+    public boolean isArriving() {
+        return arrivalTime != Double.POSITIVE_INFINITY;
+    }
+    /**
+     * Время от начала траектории до прибытия или бесконечность, если робот не прибывает.
+     */
+    public double getArrivalTime() {
+        return arrivalTime;
+    }
+    /**
+     * Длительность дуги поворота; бесконечна, если робот кружит вокруг цели.
+     */
+    public double getTurnDuration() {
+        return turnDuration;
+    }
+    /**
+     * Сторона поворота: 1 - против часовой стрелки (направление растет), -1 - по часовой, 0 - без поворота.
+     */
+    public int getTurnSide() {
+        return (int) Math.signum(angularVelocity);
+    }
+
+    public double getCenterX() { return centerX; }
+    public double getCenterY() { return centerY; }
+    public double getTurnRadius() {
+        return angularVelocity == 0 ? 0 : Math.abs(velocity / angularVelocity);
+    }
+}
@@ -0,0 +1,148 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * История траекторий всех роботов мира за последние samples отсчетов.
+ * Отсчет снимается раз в sampleEvery тактов и содержит позиции всех роботов в float
+ * и общее для них время. Позиции лежат в одном пуле (slab) по слотам кольца:
+ * слот k занимает элементы [k * capacity, (k + 1) * capacity), поэтому запись отсчета -
+ * последовательный проход по массиву, а память на робота фиксирована
+ * (см. bytesPerRobot) и не зависит от длительности симуляции.
+ * Запись и чтение не создают объектов.
+ * <p>
+ * Мир записывает отсчеты из step под своей блокировкой, а читать историю можно
+ * из любого потока: методы синхронизированы и держат монитор только на время копирования.
+ */
+public final class TrajectoryHistory {
+    private final int samples;
+    private final int sampleEvery;
+    private int capacity;
+    private float[] xs;
+    private float[] ys;
+    /**
+     * Время каждого слота кольца
+     */
+    private final double[] times;
+    /**
+     * Номер первого отсчета, который есть у робота; роботы могут появиться позже
+     */
+    private long[] firstSample;
+    private int robots = 0;
+    /**
+     * Число снятых отсчетов
+     */
+    private long recorded = 0;
+    private long ticks = 0;
+    private double clock = 0;
+    /**
+     * Создает историю.
+     *
+     * @param samples     Число отсчетов, которые хранятся для каждого робота.
+     * @param sampleEvery Число тактов между отсчетами.
+     */
+    public TrajectoryHistory(int samples, int sampleEvery) {
+        if (samples < 2 || sampleEvery <= 0) {
+            throw new IllegalArgumentException("Invalid history size " + samples + " every " + sampleEvery);
+        }
+        this.samples = samples;
+        this.sampleEvery = sampleEvery;
+        this.times = new double[samples];
+        allocate(16);
+    }
+    /**
+     * Память под историю одного робота в байтах.
+     */
+    public static long bytesPerRobot(int samples) {
+        return 2L * Float.BYTES * samples + Long.BYTES;
+    }
+
+    private void allocate(int newCapacity) {
+        float[] newXs = new float[Math.multiplyExact(newCapacity, samples)];
+        float[] newYs = new float[newXs.length];
+        for (int slot = 0; slot < samples && xs != null; slot++) {
+            System.arraycopy(xs, slot * capacity, newXs, slot * newCapacity, robots);
+            System.arraycopy(ys, slot * capacity, newYs, slot * newCapacity, robots);
+        }
+        xs = newXs;
+        ys = newYs;
+        firstSample = firstSample == null ? new long[newCapacity] : Arrays.copyOf(firstSample, newCapacity);
+        capacity = newCapacity;
+    }
+    /**
+     * Учитывает такт мира и, если пришло время, снимает отсчет позиций первых size роботов.
+     * Вызывается миром под его блокировкой записи.
+     */
+    synchronized void record(double duration, double[] x, double[] y, int size) {
+        clock += duration;
+        if (ticks++ % sampleEvery != 0) {
+            return;
+        }
+        if (size > capacity) {
+            allocate(Math.max(size, capacity * 2));
+        }
+        for (int i = robots; i < size; i++) {
+            firstSample[i] = recorded;
+        }
+        robots = Math.max(robots, size);
+        int slot = (int) (recorded % samples);
+        int base = slot * capacity;
+        for (int i = 0; i < size; i++) {
+            xs[base + i] = (float) x[i];
+            ys[base + i] = (float) y[i];
+        }
+        times[slot] = clock;
+        recorded++;
+    }
+    /**
+     * Забывает все отсчеты, например после восстановления мира.
+     */
+    synchronized void clear() {
+        robots = 0;
+        recorded = 0;
+        ticks = 0;
+    }
+    /**
+     * Копирует отсчеты робота не старше since от старых к новым.
+     * Копируется не больше, чем помещается в массивы.
+     *
+     * @param times Массив для времен отсчетов или null, если они не нужны.
+     * @return Число скопированных отсчетов.
+     */
+    public synchronized int read(int robot, double since, float[] x, float[] y, double[] times) {
+        if (robot < 0 || robot >= robots) {
+            return 0;
+        }
+        long from = Math.max(Math.max(recorded - samples, firstSample[robot]), 0);
+        while (from < recorded && this.times[(int) (from % samples)] < since) {
+            from++;
+        }
+        from = Math.max(from, recorded - Math.min(x.length, y.length));
+        if (times != null) {
+            from = Math.max(from, recorded - times.length);
+        }
+        int count = 0;
+        for (long sample = from; sample < recorded; sample++, count++) {
+            int slot = (int) (sample % samples);
+            x[count] = xs[slot * capacity + robot];
+            y[count] = ys[slot * capacity + robot];
+            if (times != null) {
+                times[count] = this.times[slot];
+            }
+        }
+        return count;
+    }
+    /**
+     * Время последнего отсчета в единицах длительности такта.
+     */
+    public synchronized double getLatestTime() {
+        return recorded == 0 ? 0 : times[(int) ((recorded - 1) % samples)];
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+}
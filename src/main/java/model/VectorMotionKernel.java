@@ -0,0 +1,178 @@
+package model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+/**
+ * Векторная реализация пакетного такта на jdk.incubator.vector: за одну итерацию
+ * считается столько роботов, сколько double помещается в регистр процессора.
+ * Остаток диапазона, не кратный ширине вектора, считается скалярной реализацией.
+ * <p>
+ * Формулы совпадают со ScalarMotionKernel, но sin, cos и atan2 вычисляются
+ * многочленами (коэффициенты fdlibm) только из сложений, умножений, делений и выборок
+ * по маске и могут отличаться от Math на несколько ulp. Встроенные векторные SIN, COS
+ * и ATAN2 не используются: их результат зависит от того, выполняется код в интерпретаторе
+ * или скомпилирован C2, так что один и тот же такт мог бы дать разные биты в разных
+ * прогонах. Арифметика IEEE округляется одинаково при любом способе выполнения,
+ * поэтому результат такта детерминирован.
+ * Из одного и того же состояния за один такт расхождение со скалярной реализацией
+ * не превышает MotionKernelType.VECTOR_TOLERANCE по координатам и направлению.
+ * Класс загружается, только если модуль jdk.incubator.vector подключен
+ * (--add-modules jdk.incubator.vector). Выбор MathBackend на эту реализацию не влияет.
+ */
+final class VectorMotionKernel implements MotionKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TWO_PI = 2 * Math.PI;
+    /**
+     * Прибавление и вычитание 1.5 * 2^52 округляет число до целого (|x| < 2^51)
+     */
+    private static final double ROUNDING = 6755399441055744.0;
+    private static final double TWO_OVER_PI = 6.36619772367581382433e-01;
+    /**
+     * π/2 = PIO2_HI + PIO2_LO; PIO2_HI содержит 33 значащих бита, поэтому k * PIO2_HI точно
+     */
+    private static final double PIO2_HI = 1.57079632673412561417e+00;
+    private static final double PIO2_LO = 6.07710050650619224932e-11;
+    private static final double TAN_PI_8 = 0.41421356237309504880;
+    private static final double[] SIN = {-1.66666666666666324348e-01, 8.33333333332248946124e-03,
+            -1.98412698298579493134e-04, 2.75573137070700676789e-06, -2.50507602534068634195e-08,
+            1.58969099521155010221e-10};
+    private static final double[] COS = {4.16666666666666019037e-02, -1.38888888888741095749e-03,
+            2.48015872894767294178e-05, -2.75573143513906633035e-07, 2.08757232129817482790e-09,
+            -1.13596475577881948265e-11};
+    private static final double[] ATAN = {3.33333333333329318027e-01, -1.99999999998764832476e-01,
+            1.42857142725034663711e-01, -1.11111104054623557880e-01, 9.09088713343650656196e-02,
+            -7.69187620504482999495e-02, 6.66107313738753120669e-02, -5.83357013379057348645e-02,
+            4.97687799461593236017e-02, -3.65315727442169155270e-02, 1.62858201153657823623e-02};
+
+    @Override
+    public int step(double[] x, double[] y, double[] direction,
+                    double[] targetX, double[] targetY,
+                    double[] maxVelocity, double[] maxAngularVelocity,
+                    boolean[] custom, int from, int to, double duration) {
+        int moved = 0;
+        int bound = from + SPECIES.loopBound(to - from);
+        int i = from;
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Double> builtin = VectorMask.fromArray(SPECIES, custom, i).not();
+            DoubleVector robotX = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector robotY = DoubleVector.fromArray(SPECIES, y, i);
+            DoubleVector robotDirection = DoubleVector.fromArray(SPECIES, direction, i);
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, targetX, i).sub(robotX);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, targetY, i).sub(robotY);
+
+            DoubleVector distance = dx.mul(dx).add(dy.mul(dy)).sqrt();
+            VectorMask<Double> moving = builtin.andNot(
+                    distance.compare(VectorOperators.LT, RobotWorld.ARRIVAL_DISTANCE));
+            if (!moving.anyTrue()) {
+                continue;
+            }
+
+            DoubleVector angleToTarget = normalize(atan2(dy, dx));
+            DoubleVector angleDifference = normalize(angleToTarget.sub(robotDirection));
+            DoubleVector maxAngular = DoubleVector.fromArray(SPECIES, maxAngularVelocity, i);
+            DoubleVector angularVelocity = maxAngular.neg().blend(maxAngular,
+                    angleDifference.compare(VectorOperators.LE, Math.PI));
+            DoubleVector velocity = DoubleVector.fromArray(SPECIES, maxVelocity, i);
+
+            DoubleVector newDirection = robotDirection.add(angularVelocity.mul(duration));
+            DoubleVector radius = velocity.div(angularVelocity);
+            DoubleVector sinOld = sin(robotDirection);
+            DoubleVector cosOld = cos(robotDirection);
+
+            DoubleVector arcX = robotX.add(radius.mul(sin(newDirection).sub(sinOld)));
+            DoubleVector lineX = robotX.add(velocity.mul(duration).mul(cosOld));
+            DoubleVector newX = arcX.blend(lineX, arcX.test(VectorOperators.IS_FINITE).not());
+
+            DoubleVector arcY = robotY.sub(radius.mul(cos(newDirection).sub(cosOld)));
+            DoubleVector lineY = robotY.add(velocity.mul(duration).mul(sinOld));
+            DoubleVector newY = arcY.blend(lineY, arcY.test(VectorOperators.IS_FINITE).not());
+
+            robotX.blend(newX, moving).intoArray(x, i);
+            robotY.blend(newY, moving).intoArray(y, i);
+            robotDirection.blend(normalize(newDirection), moving).intoArray(direction, i);
+            moved += moving.trueCount();
+        }
+        return moved + ScalarMotionKernel.EXACT.step(x, y, direction, targetX, targetY,
+                maxVelocity, maxAngularVelocity, custom, i, to, duration);
+    }
+    /**
+     * Синус: аргумент приводится к r = x - kπ/2, |r| <= π/4, и по четверти k
+     * берется ±sin(r) или ±cos(r). Точен для углов, которые встречаются в такте (|x| < 2^20).
+     */
+    private static DoubleVector sin(DoubleVector x) {
+        DoubleVector k = x.mul(TWO_OVER_PI).add(ROUNDING).sub(ROUNDING);
+        DoubleVector r = x.sub(k.mul(PIO2_HI)).sub(k.mul(PIO2_LO));
+        DoubleVector quadrant = quadrant(k);
+        DoubleVector result = sinKernel(r).blend(cosKernel(r), quadrant.compare(VectorOperators.EQ, 1)
+                .or(quadrant.compare(VectorOperators.EQ, 3)));
+        return result.blend(result.neg(), quadrant.compare(VectorOperators.GE, 2));
+    }
+    /**
+     * Косинус, см. sin.
+     */
+    private static DoubleVector cos(DoubleVector x) {
+        DoubleVector k = x.mul(TWO_OVER_PI).add(ROUNDING).sub(ROUNDING);
+        DoubleVector r = x.sub(k.mul(PIO2_HI)).sub(k.mul(PIO2_LO));
+        DoubleVector quadrant = quadrant(k);
+        DoubleVector result = cosKernel(r).blend(sinKernel(r), quadrant.compare(VectorOperators.EQ, 1)
+                .or(quadrant.compare(VectorOperators.EQ, 3)));
+        return result.blend(result.neg(), quadrant.compare(VectorOperators.EQ, 1)
+                .or(quadrant.compare(VectorOperators.EQ, 2)));
+    }
+    /**
+     * Возвращает k mod 4 для целых k; floor(k / 4) = round(k / 4 - 3/8) без ничьих.
+     */
+    private static DoubleVector quadrant(DoubleVector k) {
+        DoubleVector quarter = k.mul(0.25).sub(0.375).add(ROUNDING).sub(ROUNDING);
+        return k.sub(quarter.mul(4));
+    }
+
+    private static DoubleVector sinKernel(DoubleVector r) {
+        DoubleVector z = r.mul(r);
+        return r.add(r.mul(z).mul(polynomial(z, SIN)));
+    }
+
+    private static DoubleVector cosKernel(DoubleVector r) {
+        DoubleVector z = r.mul(r);
+        return DoubleVector.broadcast(SPECIES, 1).sub(z.mul(0.5)).add(z.mul(z).mul(polynomial(z, COS)));
+    }
+    /**
+     * Арктангенс y / x в [-π, π]: отношение меньшего модуля к большему a из [0, 1]
+     * при a > tan(π/8) заменяется на (a - 1) / (a + 1) со сдвигом на π/4, затем
+     * результат переносится в нужную четверть. При x = y = 0 возвращает 0.
+     */
+    private static DoubleVector atan2(DoubleVector y, DoubleVector x) {
+        DoubleVector absX = x.abs();
+        DoubleVector absY = y.abs();
+        DoubleVector max = absX.max(absY);
+        DoubleVector a = absX.min(absY).div(max.blend(1, max.compare(VectorOperators.EQ, 0)));
+        VectorMask<Double> large = a.compare(VectorOperators.GT, TAN_PI_8);
+        DoubleVector t = a.blend(a.sub(1).div(a.add(1)), large);
+        DoubleVector z = t.mul(t);
+        DoubleVector angle = t.sub(t.mul(z).mul(polynomial(z, ATAN))).add(Math.PI / 4, large);
+        angle = angle.blend(DoubleVector.broadcast(SPECIES, Math.PI / 2).sub(angle),
+                absY.compare(VectorOperators.GT, absX));
+        angle = angle.blend(DoubleVector.broadcast(SPECIES, Math.PI).sub(angle),
+                x.compare(VectorOperators.LT, 0));
+        return angle.blend(angle.neg(), y.compare(VectorOperators.LT, 0));
+    }
+    /**
+     * Многочлен c[0] + c[1] z + ... по схеме Горнера.
+     */
+    private static DoubleVector polynomial(DoubleVector z, double[] c) {
+        DoubleVector sum = DoubleVector.broadcast(SPECIES, c[c.length - 1]);
+        for (int i = c.length - 2; i >= 0; i--) {
+            sum = sum.mul(z).add(c[i]);
+        }
+        return sum;
+    }
+    /**
+     * Приводит углы из диапазона (-2π, 4π) к [0, 2π) без ветвлений.
+     */
+    private static DoubleVector normalize(DoubleVector angle) {
+        angle = angle.add(TWO_PI, angle.compare(VectorOperators.LT, 0));
+        return angle.sub(TWO_PI, angle.compare(VectorOperators.GE, TWO_PI));
+    }
+}
@@ -0,0 +1,61 @@
+package model;
+/**
+ * Слушатель изменений мира, по которым симуляцию можно повторить: получает каждую
+ * команду, меняющую мир, и каждый такт. Вместе с опорными кадрами (полным состоянием
+ * мира) эта последовательность позволяет воспроизвести симуляцию с любого кадра.
+ * Замена модели движения робота (setModel) не передается: роботы с подключаемой
+ * моделью повторяются только по опорным кадрам.
+ * <p>
+ * Методы вызываются в потоке, который изменил мир, под его блокировкой записи, поэтому
+ * порядок вызовов совпадает с порядком изменений. Они должны быть короткими
+ * и не должны обращаться к миру: блокировка мира не повторно входимая.
+ */
+public interface WorldListener {
+    /**
+     * Добавлен робот со встроенной моделью движения.
+     *
+     * @param tick Номер такта мира, после которого произошло изменение.
+     */
+    default void onRobotAdded(long tick, int index, double x, double y, double direction,
+                              double targetX, double targetY) {}
+    /**
+     * Роботу назначена новая цель.
+     */
+    default void onTargetChanged(long tick, int index, double x, double y) {}
+    /**
+     * Роботу назначен путь.
+     */
+    default void onPathAssigned(long tick, int index, Path path) {}
+    /**
+     * Добавлено препятствие.
+     */
+    default void onObstacleAdded(long tick, double x, double y, double radius) {}
+    /**
+     * Выполнен такт мира; tick - номер этого такта.
+     */
+    default void onStep(long tick, double duration) {}
+    /**
+     * Отдельно продвинут один робот (RobotWorld.stepRobot).
+     */
+    default void onRobotStepped(long tick, int index, double duration) {}
+    /**
+     * Робот сдвинут с заданными скоростями (RobotWorld.moveRobot).
+     */
+    default void onRobotMoved(long tick, int index, double velocity, double angularVelocity, double duration) {}
+    /**
+     * Робот перенесен по аналитической траектории на time единиц времени.
+     */
+    default void onFastForward(long tick, int index, double time, double tickDuration) {}
+    /**
+     * Нужен ли слушателю опорный кадр после такта tick.
+     */
+    default boolean needsKeyframe(long tick) {
+        return false;
+    }
+    /**
+     * Опорный кадр: полное состояние мира. Мир передает его при добавлении слушателя,
+     * после тактов, на которых needsKeyframe вернул true, и после смены настроек расчета.
+     * Объект state принадлежит миру и переиспользуется, данные нужно забрать до возврата.
+     */
+    default void onKeyframe(long tick, WorldState state) {}
+}
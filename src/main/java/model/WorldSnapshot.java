@@ -0,0 +1,85 @@
+package model;
+/**
+ * Согласованный снимок состояния всех роботов мира на момент между тактами.
+ * Заполняется методом RobotWorld.snapshot и переиспользует свои массивы,
+ * поэтому у каждого читающего потока должен быть свой снимок.
+ */
+public final class WorldSnapshot {
+    private int size = 0;
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] direction = new double[0];
+    private double[] targetX = new double[0];
+    private double[] targetY = new double[0];
+    /**
+     * Индексы роботов выборки по прямоугольнику
+     */
+    private int[] indices = new int[0];
+    /**
+     * Копирует первые count элементов массивов состояния мира.
+     */
+    void copyFrom(int count, double[] xs, double[] ys, double[] directions,
+                  double[] targetXs, double[] targetYs) {
+        if (x.length < count) {
+            int capacity = Math.max(count, x.length * 2);
+            x = new double[capacity];
+            y = new double[capacity];
+            direction = new double[capacity];
+            targetX = new double[capacity];
+            targetY = new double[capacity];
+        }
+        System.arraycopy(xs, 0, x, 0, count);
+        System.arraycopy(ys, 0, y, 0, count);
+        System.arraycopy(directions, 0, direction, 0, count);
+        System.arraycopy(targetXs, 0, targetX, 0, count);
+        System.arraycopy(targetYs, 0, targetY, 0, count);
+        size = count;
+    }
+    /**
+     * Копирует состояние роботов с индексами из indices в порядке их следования.
+     */
+    void copySelected(int count, double[] xs, double[] ys, double[] directions,
+                      double[] targetXs, double[] targetYs) {
+        if (x.length < count) {
+            int capacity = Math.max(count, x.length * 2);
+            x = new double[capacity];
+            y = new double[capacity];
+            direction = new double[capacity];
+            targetX = new double[capacity];
+            targetY = new double[capacity];
+        }
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            x[i] = xs[index];
+            y[i] = ys[index];
+            direction[i] = directions[index];
+            targetX[i] = targetXs[index];
+            targetY[i] = targetYs[index];
+        }
+        size = count;
+    }
+    /**
+     * Возвращает буфер индексов для выборки не меньше count роботов.
+     */
+    int[] indexBuffer(int count) {
+        if (indices.length < count) {
+            indices = new int[Math.max(count, indices.length * 2)];
+        }
+        return indices;
+    }
+    /**
+     * Возвращает количество роботов в снимке.
+     */
+    public int size() { return size; }
+    public double getX(int index) { return x[index]; }
+    public double getY(int index) { return y[index]; }
+    public double getDirection(int index) { return direction[index]; }
+    public double getTargetX(int index) { return targetX[index]; }
+    public double getTargetY(int index) { return targetY[index]; }
+    /**
+     * Массивы снимка для пакетной обработки; они могут быть длиннее size.
+     */
+    public double[] getXs() { return x; }
+    public double[] getYs() { return y; }
+    public double[] getDirections() { return direction; }
+}
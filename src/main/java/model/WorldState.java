@@ -0,0 +1,100 @@
+package model;
+
+import java.util.Arrays;
+/**
+ * Полное состояние мира, по которому его можно восстановить и продолжить симуляцию
+ * с того же места: роботы, их пути, препятствия, настройки расчета и номер такта.
+ * Заполняется RobotWorld.captureState и применяется RobotWorld.restoreState.
+ * <p>
+ * Массивы отдаются без копирования, чтобы их можно было быстро записать в файл
+ * или заполнить при чтении; они могут быть длиннее, значимы первые size()
+ * (для препятствий - getObstacleCount()) элементов. Роботы с подключаемой моделью
+ * сохраняются как роботы встроенной модели в той же позиции.
+ */
+public final class WorldState {
+    private long tick = 0;
+    private int size = 0;
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] direction = new double[0];
+    private double[] targetX = new double[0];
+    private double[] targetY = new double[0];
+    private double[] maxVelocity = new double[0];
+    private double[] maxAngularVelocity = new double[0];
+    private Path[] paths = new Path[0];
+    private int[] waypoints = new int[0];
+    private int obstacleCount = 0;
+    private double[] obstacleX = new double[0];
+    private double[] obstacleY = new double[0];
+    private double[] obstacleRadius = new double[0];
+    private CollisionMode collisionMode = CollisionMode.NONE;
+    private double robotRadius = CollisionResolver.DEFAULT_ROBOT_RADIUS;
+    private MotionKernelType motionKernel = MotionKernelType.SCALAR;
+    private MathBackend mathBackend = MathBackend.EXACT;
+    /**
+     * Задает число роботов и препятствий, при необходимости увеличивая массивы.
+     * Значения в массивах не сбрасываются, кроме путей, которые сверх прежнего
+     * числа роботов становятся null.
+     */
+    public void resize(int robots, int obstacles) {
+        if (robots < 0 || obstacles < 0) {
+            throw new IllegalArgumentException("Negative size " + robots + ", " + obstacles);
+        }
+        if (x.length < robots) {
+            int capacity = Math.max(robots, x.length * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            targetX = Arrays.copyOf(targetX, capacity);
+            targetY = Arrays.copyOf(targetY, capacity);
+            maxVelocity = Arrays.copyOf(maxVelocity, capacity);
+            maxAngularVelocity = Arrays.copyOf(maxAngularVelocity, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            waypoints = Arrays.copyOf(waypoints, capacity);
+        }
+        if (robots > size) {
+            Arrays.fill(paths, size, robots, null);
+        }
+        if (obstacleX.length < obstacles) {
+            int capacity = Math.max(obstacles, obstacleX.length * 2);
+            obstacleX = Arrays.copyOf(obstacleX, capacity);
+            obstacleY = Arrays.copyOf(obstacleY, capacity);
+            obstacleRadius = Arrays.copyOf(obstacleRadius, capacity);
+        }
+        size = robots;
+        obstacleCount = obstacles;
+    }
+    /**
+     * Возвращает количество роботов.
+     */
+    public int size() { return size; }
+    public int getObstacleCount() { return obstacleCount; }
+    public long getTick() { return tick; }
+    public void setTick(long tick) { this.tick = tick; }
+    public double[] getXs() { return x; }
+    public double[] getYs() { return y; }
+    public double[] getDirections() { return direction; }
+    public double[] getTargetXs() { return targetX; }
+    public double[] getTargetYs() { return targetY; }
+    public double[] getMaxVelocities() { return maxVelocity; }
+    public double[] getMaxAngularVelocities() { return maxAngularVelocity; }
+    /**
+     * Пути роботов; null - робот едет прямо к цели.
+     */
+    public Path[] getPaths() { return paths; }
+    /**
+     * Номера текущих путевых точек роботов, у которых есть путь.
+     */
+    public int[] getWaypoints() { return waypoints; }
+    public double[] getObstacleXs() { return obstacleX; }
+    public double[] getObstacleYs() { return obstacleY; }
+    public double[] getObstacleRadii() { return obstacleRadius; }
+    public CollisionMode getCollisionMode() { return collisionMode; }
+    public void setCollisionMode(CollisionMode collisionMode) { this.collisionMode = collisionMode; }
+    public double getRobotRadius() { return robotRadius; }
+    public void setRobotRadius(double robotRadius) { this.robotRadius = robotRadius; }
+    public MotionKernelType getMotionKernel() { return motionKernel; }
+    public void setMotionKernel(MotionKernelType motionKernel) { this.motionKernel = motionKernel; }
+    public MathBackend getMathBackend() { return mathBackend; }
+    public void setMathBackend(MathBackend mathBackend) { this.mathBackend = mathBackend; }
+}
@@ -0,0 +1,47 @@
+package persistence;
+
+import java.nio.ByteOrder;
+/**
+ * Формат файла записи симуляции. Файл начинается с заголовка (MAGIC, VERSION,
+ * байт StepMode мира на момент начала записи), за которым идут записи: байт типа, номер такта мира (long) и данные записи.
+ * Команды несут номер такта, после которого они выполнены, а запись TICK - номер
+ * выполненного такта, поэтому при воспроизведении записи применяются по порядку,
+ * пока номер такта не превысит нужный.
+ * <p>
+ * Опорный кадр (KEYFRAME) хранит полное состояние мира. При закрытии в конец
+ * файла пишется индекс опорных кадров (INDEX) и хвост с его смещением
+ * и INDEX_MAGIC; если запись оборвалась, индекс восстанавливается просмотром файла.
+ * Все числа записываются в порядке байтов ORDER.
+ */
+final class RecordingFormat {
+    static final int MAGIC = 0x52524543;
+    static final int INDEX_MAGIC = 0x52494458;
+    static final short VERSION = 2;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**
+     * Размер заголовка файла
+     */
+    static final int HEADER_SIZE = 4 + 2 + 1;
+    /**
+     * Размер начала записи: тип и номер такта
+     */
+    static final int RECORD_HEADER_SIZE = 1 + 8;
+    /**
+     * Размер хвоста файла: смещение индекса и INDEX_MAGIC
+     */
+    static final int TRAILER_SIZE = 8 + 4;
+
+    static final byte TICK = 1;
+    static final byte ROBOT_ADDED = 2;
+    static final byte TARGET = 3;
+    static final byte PATH = 4;
+    static final byte OBSTACLE = 5;
+    static final byte ROBOT_STEP = 6;
+    static final byte ROBOT_MOVE = 7;
+    static final byte FAST_FORWARD = 8;
+    static final byte KEYFRAME = 9;
+    static final byte INDEX = 10;
+
+    private RecordingFormat() {
+    }
+}
@@ -0,0 +1,298 @@
+package persistence;
+
+import model.Path;
+import model.RobotWorld;
+import model.WorldListener;
+import model.WorldState;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+/**
+ * Записывает симуляцию мира в компактный двоичный файл (см. RecordingFormat):
+ * каждую команду, каждый такт и опорные кадры через заданное число тактов.
+ * Такт занимает в файле 17 байт, команда - несколько десятков, поэтому запись
+ * почти не замедляет симуляцию; основную цену составляют опорные кадры,
+ * и ее задает их интервал.
+ * <p>
+ * Записи складываются в прямой буфер и сбрасываются в FileChannel, когда он заполнен.
+ * Методы слушателя вызываются миром под его блокировкой, поэтому ошибка записи
+ * не выбрасывается из них, а прекращает запись и выбрасывается из close.
+ */
+public class SimulationRecorder implements WorldListener, Closeable {
+    /**
+     * Интервал опорных кадров по умолчанию, в тактах
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private final RobotWorld world;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(RecordingFormat.ORDER);
+    private final int keyframeInterval;
+    /**
+     * Число байт, уже переданных в канал
+     */
+    private long written = 0;
+    private long lastTick = 0;
+    private long lastKeyframe = Long.MIN_VALUE;
+    private long[] keyframeTicks = new long[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount = 0;
+    private IOException failure;
+    private boolean closed = false;
+
+    private SimulationRecorder(RobotWorld world, FileChannel channel, int keyframeInterval) {
+        this.world = world;
+        this.channel = channel;
+        this.keyframeInterval = keyframeInterval;
+    }
+    /**
+     * Создает файл записи и начинает записывать мир с его текущего состояния.
+     *
+     * @param keyframeInterval Число тактов между опорными кадрами.
+     */
+    public static SimulationRecorder start(RobotWorld world, File file, int keyframeInterval) throws IOException {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframeInterval must be positive: " + keyframeInterval);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        SimulationRecorder recorder = new SimulationRecorder(world, channel, keyframeInterval);
+        recorder.buffer.putInt(RecordingFormat.MAGIC).putShort(RecordingFormat.VERSION)
+                .put((byte) world.getStepMode().ordinal());
+        world.addWorldListener(recorder);
+        return recorder;
+    }
+
+    @Override
+    public synchronized void onRobotAdded(long tick, int index, double x, double y, double direction,
+                                          double targetX, double targetY) {
+        if (begin(RecordingFormat.ROBOT_ADDED, tick, 4 + 5 * 8)) {
+            buffer.putInt(index).putDouble(x).putDouble(y).putDouble(direction)
+                    .putDouble(targetX).putDouble(targetY);
+        }
+    }
+
+    @Override
+    public synchronized void onTargetChanged(long tick, int index, double x, double y) {
+        if (begin(RecordingFormat.TARGET, tick, 4 + 2 * 8)) {
+            buffer.putInt(index).putDouble(x).putDouble(y);
+        }
+    }
+
+    @Override
+    public synchronized void onPathAssigned(long tick, int index, Path path) {
+        if (begin(RecordingFormat.PATH, tick, 4 + pathSize(path))) {
+            buffer.putInt(index);
+            putPath(path);
+        }
+    }
+
+    @Override
+    public synchronized void onObstacleAdded(long tick, double x, double y, double radius) {
+        if (begin(RecordingFormat.OBSTACLE, tick, 3 * 8)) {
+            buffer.putDouble(x).putDouble(y).putDouble(radius);
+        }
+    }
+
+    @Override
+    public synchronized void onStep(long tick, double duration) {
+        if (begin(RecordingFormat.TICK, tick, 8)) {
+            buffer.putDouble(duration);
+        }
+    }
+
+    @Override
+    public synchronized void onRobotStepped(long tick, int index, double duration) {
+        if (begin(RecordingFormat.ROBOT_STEP, tick, 4 + 8)) {
+            buffer.putInt(index).putDouble(duration);
+        }
+    }
+
+    @Override
+    public synchronized void onRobotMoved(long tick, int index, double velocity, double angularVelocity,
+                                          double duration) {
+        if (begin(RecordingFormat.ROBOT_MOVE, tick, 4 + 3 * 8)) {
+            buffer.putInt(index).putDouble(velocity).putDouble(angularVelocity).putDouble(duration);
+        }
+    }
+
+    @Override
+    public synchronized void onFastForward(long tick, int index, double time, double tickDuration) {
+        if (begin(RecordingFormat.FAST_FORWARD, tick, 4 + 2 * 8)) {
+            buffer.putInt(index).putDouble(time).putDouble(tickDuration);
+        }
+    }
+
+    @Override
+    public synchronized boolean needsKeyframe(long tick) {
+        return failure == null && !closed && tick - lastKeyframe >= keyframeInterval;
+    }
+
+    @Override
+    public synchronized void onKeyframe(long tick, WorldState state) {
+        long offset = written + buffer.position();
+        if (!begin(RecordingFormat.KEYFRAME, tick, 3 * 4 + 3 + 8)) {
+            return;
+        }
+        int size = state.size();
+        int obstacles = state.getObstacleCount();
+        Path[] paths = state.getPaths();
+        int pathCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (paths[i] != null) {
+                pathCount++;
+            }
+        }
+        buffer.putInt(size).putInt(obstacles).putInt(pathCount)
+                .put((byte) state.getCollisionMode().ordinal())
+                .put((byte) state.getMotionKernel().ordinal())
+                .put((byte) state.getMathBackend().ordinal())
+                .putDouble(state.getRobotRadius());
+        putDoubles(state.getXs(), size);
+        putDoubles(state.getYs(), size);
+        putDoubles(state.getDirections(), size);
+        putDoubles(state.getTargetXs(), size);
+        putDoubles(state.getTargetYs(), size);
+        putDoubles(state.getMaxVelocities(), size);
+        putDoubles(state.getMaxAngularVelocities(), size);
+        putDoubles(state.getObstacleXs(), obstacles);
+        putDoubles(state.getObstacleYs(), obstacles);
+        putDoubles(state.getObstacleRadii(), obstacles);
+        for (int i = 0; i < size && failure == null; i++) {
+            if (paths[i] != null && ensure(2 * 4 + pathSize(paths[i]))) {
+                buffer.putInt(i).putInt(state.getWaypoints()[i]);
+                putPath(paths[i]);
+            }
+        }
+        if (failure != null) {
+            return;
+        }
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+        lastKeyframe = tick;
+    }
+    /**
+     * Начинает запись указанного типа, освобождая в буфере место под ее данные.
+     *
+     * @return false, если запись прекращена.
+     */
+    private boolean begin(byte type, long tick, int payload) {
+        if (!ensure(RecordingFormat.RECORD_HEADER_SIZE + payload)) {
+            return false;
+        }
+        buffer.put(type).putLong(tick);
+        lastTick = Math.max(lastTick, tick);
+        return true;
+    }
+    /**
+     * Сбрасывает буфер в канал, если в нем меньше bytes свободных байт.
+     *
+     * @return false, если запись прекращена из-за ошибки или закрытия.
+     */
+    private boolean ensure(int bytes) {
+        if (failure != null || closed) {
+            return false;
+        }
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.remaining() < bytes) {
+                failure = new IOException("Record of " + bytes + " bytes does not fit the buffer");
+            }
+        }
+        return failure == null;
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        buffer.clear();
+    }
+    /**
+     * Записывает первые count элементов массива частями размером со свободное место буфера.
+     */
+    private void putDoubles(double[] values, int count) {
+        int offset = 0;
+        while (offset < count && ensure(Double.BYTES)) {
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            int chunk = Math.min(doubles.remaining(), count - offset);
+            doubles.put(values, offset, chunk);
+            buffer.position(buffer.position() + chunk * Double.BYTES);
+            offset += chunk;
+        }
+    }
+
+    private static int pathSize(Path path) {
+        return 1 + 2 * 8 + 4 + 2 * 8 * path.size();
+    }
+
+    private void putPath(Path path) {
+        buffer.put((byte) (path.isFound() ? 1 : 0))
+                .putDouble(path.getStartX()).putDouble(path.getStartY())
+                .putInt(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            buffer.putDouble(path.getX(i)).putDouble(path.getY(i));
+        }
+    }
+    /**
+     * Возвращает число байт, записанных в файл и ожидающих записи в буфере.
+     */
+    public synchronized long getBytesWritten() {
+        return written + buffer.position();
+    }
+
+    public synchronized int getKeyframeCount() {
+        return keyframeCount;
+    }
+    /**
+     * Прекращает запись, дописывает индекс опорных кадров и закрывает файл.
+     *
+     * @throws IOException если запись прекратилась из-за ошибки ввода-вывода.
+     */
+    @Override
+    public void close() throws IOException {
+        world.removeWorldListener(this);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                long indexOffset = written + buffer.position();
+                if (begin(RecordingFormat.INDEX, lastTick, 4)) {
+                    buffer.putInt(keyframeCount);
+                    for (int i = 0; i < keyframeCount && ensure(2 * 8); i++) {
+                        buffer.putLong(keyframeTicks[i]).putLong(keyframeOffsets[i]);
+                    }
+                    if (ensure(RecordingFormat.TRAILER_SIZE)) {
+                        buffer.putLong(indexOffset).putInt(RecordingFormat.INDEX_MAGIC);
+                    }
+                }
+                if (failure == null) {
+                    flush();
+                }
+            } finally {
+                closed = true;
+                channel.close();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package persistence;
+
+import model.CollisionMode;
+import model.MathBackend;
+import model.MotionKernelType;
+import model.Path;
+import model.RobotWorld;
+import model.StepMode;
+import model.WorldState;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+/**
+ * Воспроизводит запись SimulationRecorder в собственном мире: повторяет команды
+ * и такты по порядку, а для перехода к произвольному такту восстанавливает мир
+ * из ближайшего предшествующего опорного кадра и досчитывает оставшиеся такты.
+ * Мир воспроизведения можно показывать через RobotModel и GameVisualizer,
+ * как обычный мир.
+ * <p>
+ * Мир воспроизведения шагает в режиме (StepMode), записанном в заголовке файла.
+ * Встроенная модель движения детерминирована, поэтому при воспроизведении
+ * по порядку состояние на каждом опорном кадре должно совпасть с записанным
+ * бит в бит; несовпадения считаются (getDivergedKeyframes), и мир
+ * выравнивается по кадру. Роботы с подключаемой моделью воспроизводятся
+ * встроенной моделью и совпадают с записью только на опорных кадрах.
+ * <p>
+ * Не потокобезопасен: воспроизведением управляет один поток.
+ */
+public class SimulationReplayer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(RecordingFormat.ORDER);
+    /**
+     * Смещение в файле байта, который лежит в начале буфера
+     */
+    private long bufferOffset = 0;
+    private final RobotWorld world = new RobotWorld();
+    private final WorldState keyframe = new WorldState();
+    private final WorldState current = new WorldState();
+    private long[] keyframeTicks = new long[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount = 0;
+    private long lastTick = 0;
+    private int divergedKeyframes = 0;
+
+    /**
+     * Открывает файл записи и переходит к ее первому такту.
+     *
+     * @throws IOException если файл не является записью симуляции или в нем нет опорных кадров.
+     */
+    public SimulationReplayer(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            seekFile(0);
+            if (!ensure(RecordingFormat.HEADER_SIZE) || buffer.getInt() != RecordingFormat.MAGIC) {
+                throw new IOException("Not a simulation recording: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != RecordingFormat.VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            byte stepMode = buffer.get();
+            if (stepMode < 0 || stepMode >= StepMode.values().length) {
+                throw new IOException("Corrupted recording header: unknown step mode " + stepMode);
+            }
+            world.setStepMode(StepMode.values()[stepMode]);
+            if (!readIndex()) {
+                scanIndex();
+            }
+            if (keyframeCount == 0) {
+                throw new IOException("Recording has no keyframes: " + file);
+            }
+            seek(keyframeTicks[0]);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    /**
+     * Возвращает мир, в котором воспроизводится запись.
+     */
+    public RobotWorld getWorld() {
+        return world;
+    }
+    /**
+     * Возвращает номер текущего такта воспроизведения.
+     */
+    public long getTick() {
+        return world.getTick();
+    }
+
+    public long getFirstTick() {
+        return keyframeTicks[0];
+    }
+
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+    /**
+     * Число опорных кадров, на которых последовательное воспроизведение разошлось с записью.
+     */
+    public int getDivergedKeyframes() {
+        return divergedKeyframes;
+    }
+    /**
+     * Воспроизводит следующий такт вместе с командами, выполненными после него.
+     *
+     * @return false, если запись закончилась.
+     */
+    public boolean next() throws IOException {
+        long tick = world.getTick();
+        if (tick >= lastTick) {
+            return false;
+        }
+        playUntil(tick + 1, true);
+        return true;
+    }
+    /**
+     * Переходит к указанному такту: восстанавливает мир из последнего опорного кадра
+     * не позже этого такта и воспроизводит записи до него.
+     */
+    public void seek(long tick) throws IOException {
+        tick = Math.max(keyframeTicks[0], Math.min(tick, lastTick));
+        int found = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+        if (found < 0) {
+            found = -found - 2;
+        }
+        // Опорных кадров одного такта может быть несколько; берем первый, остальные применятся по порядку
+        while (found > 0 && keyframeTicks[found - 1] == keyframeTicks[found]) {
+            found--;
+        }
+        seekFile(keyframeOffsets[found]);
+        playUntil(tick, false);
+    }
+    /**
+     * Применяет записи по порядку, пока номер такта записи не превышает tick.
+     *
+     * @param verify Сравнивать состояние мира с опорными кадрами.
+     */
+    private void playUntil(long tick, boolean verify) throws IOException {
+        while (ensure(RecordingFormat.RECORD_HEADER_SIZE)) {
+            int start = buffer.position();
+            byte type = buffer.get(start);
+            long recordTick = buffer.getLong(start + 1);
+            if (type == RecordingFormat.INDEX || recordTick > tick) {
+                return;
+            }
+            buffer.position(start + RecordingFormat.RECORD_HEADER_SIZE);
+            if (!apply(type, recordTick, verify)) {
+                // Запись оборвана на середине: дальше воспроизводить нечего
+                lastTick = world.getTick();
+                return;
+            }
+        }
+    }
+    /**
+     * Применяет к миру запись, начало которой уже прочитано.
+     *
+     * @return false, если файл закончился раньше записи.
+     */
+    private boolean apply(byte type, long tick, boolean verify) throws IOException {
+        switch (type) {
+            case RecordingFormat.TICK -> {
+                if (!ensure(8)) return false;
+                world.step(buffer.getDouble());
+            }
+            case RecordingFormat.ROBOT_ADDED -> {
+                if (!ensure(4 + 5 * 8)) return false;
+                buffer.getInt();
+                world.addRobot(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble());
+            }
+            case RecordingFormat.TARGET -> {
+                if (!ensure(4 + 2 * 8)) return false;
+                world.setTarget(buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+            }
+            case RecordingFormat.PATH -> {
+                if (!ensure(4)) return false;
+                int index = buffer.getInt();
+                Path path = readPath();
+                if (path == null) return false;
+                world.followPath(index, path);
+            }
+            case RecordingFormat.OBSTACLE -> {
+                if (!ensure(3 * 8)) return false;
+                world.addObstacle(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            }
+            case RecordingFormat.ROBOT_STEP -> {
+                if (!ensure(4 + 8)) return false;
+                world.stepRobot(buffer.getInt(), buffer.getDouble());
+            }
+            case RecordingFormat.ROBOT_MOVE -> {
+                if (!ensure(4 + 3 * 8)) return false;
+                world.moveRobot(buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            }
+            case RecordingFormat.FAST_FORWARD -> {
+                if (!ensure(4 + 2 * 8)) return false;
+                world.fastForward(buffer.getInt(), buffer.getDouble(), buffer.getDouble());
+            }
+            case RecordingFormat.KEYFRAME -> {
+                if (!readKeyframe(keyframe, tick)) return false;
+                if (verify && !matches(keyframe)) {
+                    divergedKeyframes++;
+                }
+                world.restoreState(keyframe);
+            }
+            default -> throw new IOException("Corrupted recording: unknown record type " + type
+                    + " at offset " + (bufferOffset + buffer.position() - RecordingFormat.RECORD_HEADER_SIZE));
+        }
+        return true;
+    }
+    /**
+     * Сравнивает состояние роботов мира с опорным кадром бит в бит.
+     */
+    private boolean matches(WorldState expected) {
+        world.captureState(current);
+        int size = expected.size();
+        return current.size() == size
+                && Arrays.equals(current.getXs(), 0, size, expected.getXs(), 0, size)
+                && Arrays.equals(current.getYs(), 0, size, expected.getYs(), 0, size)
+                && Arrays.equals(current.getDirections(), 0, size, expected.getDirections(), 0, size)
+                && Arrays.equals(current.getTargetXs(), 0, size, expected.getTargetXs(), 0, size)
+                && Arrays.equals(current.getTargetYs(), 0, size, expected.getTargetYs(), 0, size);
+    }
+    /**
+     * Читает данные опорного кадра, начало записи которого уже прочитано.
+     *
+     * @return false, если файл закончился раньше кадра.
+     */
+    private boolean readKeyframe(WorldState state, long tick) throws IOException {
+        if (!ensure(3 * 4 + 3 + 8)) {
+            return false;
+        }
+        int size = buffer.getInt();
+        int obstacles = buffer.getInt();
+        int pathCount = buffer.getInt();
+        CollisionMode collisionMode = constant(CollisionMode.values(), buffer.get());
+        MotionKernelType kernel = constant(MotionKernelType.values(), buffer.get());
+        MathBackend math = constant(MathBackend.values(), buffer.get());
+        double robotRadius = buffer.getDouble();
+        if (size < 0 || obstacles < 0 || pathCount < 0 || pathCount > size) {
+            throw new IOException("Corrupted keyframe");
+        }
+        state.resize(size, obstacles);
+        state.setTick(tick);
+        state.setCollisionMode(collisionMode);
+        state.setMotionKernel(kernel);
+        state.setMathBackend(math);
+        state.setRobotRadius(robotRadius);
+        boolean complete = getDoubles(state.getXs(), size)
+                && getDoubles(state.getYs(), size)
+                && getDoubles(state.getDirections(), size)
+                && getDoubles(state.getTargetXs(), size)
+                && getDoubles(state.getTargetYs(), size)
+                && getDoubles(state.getMaxVelocities(), size)
+                && getDoubles(state.getMaxAngularVelocities(), size)
+                && getDoubles(state.getObstacleXs(), obstacles)
+                && getDoubles(state.getObstacleYs(), obstacles)
+                && getDoubles(state.getObstacleRadii(), obstacles);
+        if (!complete) {
+            return false;
+        }
+        Arrays.fill(state.getPaths(), 0, size, null);
+        for (int i = 0; i < pathCount; i++) {
+            if (!ensure(2 * 4)) {
+                return false;
+            }
+            int index = buffer.getInt();
+            int waypoint = buffer.getInt();
+            Path path = readPath();
+            if (path == null) {
+                return false;
+            }
+            if (index < 0 || index >= size || waypoint < 0 || waypoint >= path.size()) {
+                throw new IOException("Corrupted keyframe path");
+            }
+            state.getPaths()[index] = path;
+            state.getWaypoints()[index] = waypoint;
+        }
+        return true;
+    }
+    private static <E> E constant(E[] values, byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Corrupted keyframe: unknown setting " + ordinal);
+        }
+        return values[ordinal];
+    }
+    /**
+     * Читает путь; null, если файл закончился раньше.
+     */
+    private Path readPath() throws IOException {
+        if (!ensure(1 + 2 * 8 + 4)) {
+            return null;
+        }
+        boolean found = buffer.get() != 0;
+        double startX = buffer.getDouble();
+        double startY = buffer.getDouble();
+        int size = buffer.getInt();
+        if (size <= 0 || size > BUFFER_SIZE / 16) {
+            throw new IOException("Corrupted path of " + size + " waypoints");
+        }
+        if (!ensure(2 * 8 * size)) {
+            return null;
+        }
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = buffer.getDouble();
+            ys[i] = buffer.getDouble();
+        }
+        return Path.of(startX, startY, xs, ys, found);
+    }
+    /**
+     * Читает count чисел в массив частями размером с буфер.
+     */
+    private boolean getDoubles(double[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            if (!ensure(Double.BYTES)) {
+                return false;
+            }
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            int chunk = Math.min(doubles.remaining(), count - offset);
+            doubles.get(values, offset, chunk);
+            buffer.position(buffer.position() + chunk * Double.BYTES);
+            offset += chunk;
+        }
+        return true;
+    }
+    /**
+     * Читает индекс опорных кадров по хвосту файла.
+     *
+     * @return false, если хвоста нет (запись не была закрыта).
+     */
+    private boolean readIndex() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < RecordingFormat.HEADER_SIZE + RecordingFormat.TRAILER_SIZE) {
+            return false;
+        }
+        seekFile(fileSize - RecordingFormat.TRAILER_SIZE);
+        if (!ensure(RecordingFormat.TRAILER_SIZE)) {
+            return false;
+        }
+        long indexOffset = buffer.getLong();
+        if (buffer.getInt() != RecordingFormat.INDEX_MAGIC || indexOffset < RecordingFormat.HEADER_SIZE
+                || indexOffset >= fileSize) {
+            return false;
+        }
+        seekFile(indexOffset);
+        if (!ensure(RecordingFormat.RECORD_HEADER_SIZE + 4) || buffer.get() != RecordingFormat.INDEX) {
+            return false;
+        }
+        lastTick = buffer.getLong();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            if (!ensure(2 * 8)) {
+                throw new EOFException("Truncated keyframe index");
+            }
+            addKeyframe(buffer.getLong(), buffer.getLong());
+        }
+        return true;
+    }
+    /**
+     * Восстанавливает индекс опорных кадров просмотром всех записей.
+     */
+    private void scanIndex() throws IOException {
+        seekFile(RecordingFormat.HEADER_SIZE);
+        while (ensure(RecordingFormat.RECORD_HEADER_SIZE)) {
+            long offset = bufferOffset + buffer.position();
+            byte type = buffer.get();
+            long tick = buffer.getLong();
+            if (type == RecordingFormat.INDEX || !skip(type)) {
+                return;
+            }
+            if (type == RecordingFormat.KEYFRAME) {
+                addKeyframe(tick, offset);
+            }
+            lastTick = Math.max(lastTick, tick);
+        }
+    }
+    /**
+     * Пропускает данные записи.
+     *
+     * @return false, если файл закончился раньше записи.
+     */
+    private boolean skip(byte type) throws IOException {
+        return switch (type) {
+            case RecordingFormat.TICK -> skipBytes(8);
+            case RecordingFormat.ROBOT_ADDED -> skipBytes(4 + 5 * 8);
+            case RecordingFormat.TARGET, RecordingFormat.FAST_FORWARD -> skipBytes(4 + 2 * 8);
+            case RecordingFormat.PATH -> skipBytes(4) && readPath() != null;
+            case RecordingFormat.OBSTACLE -> skipBytes(3 * 8);
+            case RecordingFormat.ROBOT_STEP -> skipBytes(4 + 8);
+            case RecordingFormat.ROBOT_MOVE -> skipBytes(4 + 3 * 8);
+            case RecordingFormat.KEYFRAME -> readKeyframe(current, 0);
+            default -> throw new IOException("Corrupted recording: unknown record type " + type);
+        };
+    }
+
+    private boolean skipBytes(int count) throws IOException {
+        if (!ensure(count)) {
+            return false;
+        }
+        buffer.position(buffer.position() + count);
+        return true;
+    }
+
+    private void addKeyframe(long tick, long offset) {
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    private void seekFile(long offset) {
+        bufferOffset = offset;
+        buffer.clear().limit(0);
+    }
+    /**
+     * Дочитывает файл в буфер, пока в нем не окажется bytes непрочитанных байт.
+     *
+     * @return false, если файл закончился раньше.
+     */
+    private boolean ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (bytes > buffer.capacity()) {
+            throw new IOException("Record of " + bytes + " bytes does not fit the buffer");
+        }
+        bufferOffset += buffer.position();
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int read = channel.read(buffer, bufferOffset + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
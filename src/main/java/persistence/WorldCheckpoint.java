@@ -0,0 +1,286 @@
+package persistence;
+
+import model.CollisionMode;
+import model.MathBackend;
+import model.MotionKernelType;
+import model.Path;
+import model.RobotWorld;
+import model.WorldState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+/**
+ * Сохраняет полное состояние мира в версионированный двоичный файл и восстанавливает его.
+ * Файл состоит из заголовка фиксированного размера, столбцов состояния роботов
+ * (x, y, направление, цель, ограничения скоростей) и препятствий в виде подряд
+ * идущих double и раздела путей. Столбцы читаются и пишутся через прямой буфер
+ * большими частями, поэтому мир из миллиона роботов загружается за доли секунды.
+ * <p>
+ * Сохранение пишет во временный файл рядом и затем заменяет им старый, так что
+ * прерванное сохранение не портит предыдущую контрольную точку. Файл не отображается
+ * в память: на Windows файл с живым отображением (а оно освобождается только сборщиком
+ * мусора) и файл, открытый другим процессом, нельзя заменить. Если замена не удалась,
+ * save удаляет временный файл и бросает IOException.
+ */
+public class WorldCheckpoint {
+    private static final int MAGIC = 0x52434B50;
+    private static final short VERSION = 1;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**
+     * Размер заголовка; столбцы начинаются с выровненного смещения
+     */
+    private static final int HEADER_SIZE = 64;
+    private static final int ROBOT_COLUMNS = 7;
+    private static final int OBSTACLE_COLUMNS = 3;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private final File file;
+
+    public WorldCheckpoint(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+    /**
+     * Сохраняет состояние мира. Роботы с подключаемой моделью сохраняются
+     * как роботы встроенной модели в той же позиции.
+     */
+    public void save(RobotWorld world) throws IOException {
+        WorldState state = new WorldState();
+        world.captureState(state);
+        save(state);
+    }
+    /**
+     * Сохраняет снятое состояние мира.
+     *
+     * @throws IOException если не удалось записать временный файл или заменить им старый.
+     */
+    public void save(WorldState state) throws IOException {
+        int size = state.size();
+        int obstacles = state.getObstacleCount();
+        Path[] paths = state.getPaths();
+        int pathCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (paths[i] != null) {
+                pathCount++;
+            }
+        }
+        java.nio.file.Path target = file.toPath().toAbsolutePath();
+        java.nio.file.Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+            buffer.putInt(MAGIC).putShort(VERSION)
+                    .put((byte) state.getCollisionMode().ordinal())
+                    .put((byte) state.getMotionKernel().ordinal())
+                    .put((byte) state.getMathBackend().ordinal());
+            buffer.putLong(16, state.getTick())
+                    .putInt(24, size)
+                    .putInt(28, obstacles)
+                    .putInt(32, pathCount)
+                    .putDouble(40, state.getRobotRadius());
+            buffer.position(HEADER_SIZE);
+            putColumn(channel, buffer, state.getXs(), size);
+            putColumn(channel, buffer, state.getYs(), size);
+            putColumn(channel, buffer, state.getDirections(), size);
+            putColumn(channel, buffer, state.getTargetXs(), size);
+            putColumn(channel, buffer, state.getTargetYs(), size);
+            putColumn(channel, buffer, state.getMaxVelocities(), size);
+            putColumn(channel, buffer, state.getMaxAngularVelocities(), size);
+            putColumn(channel, buffer, state.getObstacleXs(), obstacles);
+            putColumn(channel, buffer, state.getObstacleYs(), obstacles);
+            putColumn(channel, buffer, state.getObstacleRadii(), obstacles);
+            for (int i = 0; i < size; i++) {
+                Path path = paths[i];
+                if (path == null) {
+                    continue;
+                }
+                ensure(channel, buffer, 2 * 4 + 1 + 2 * 8 + 4);
+                buffer.putInt(i).putInt(state.getWaypoints()[i])
+                        .put((byte) (path.isFound() ? 1 : 0))
+                        .putDouble(path.getStartX()).putDouble(path.getStartY())
+                        .putInt(path.size());
+                for (int k = 0; k < path.size(); k++) {
+                    ensure(channel, buffer, 2 * 8);
+                    buffer.putDouble(path.getX(k)).putDouble(path.getY(k));
+                }
+            }
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw new IOException("Failed to replace checkpoint " + target + ": " + e.getMessage(), e);
+        }
+    }
+    /**
+     * Восстанавливает мир из контрольной точки, если файл существует.
+     *
+     * @return false, если файла нет.
+     * @throws IOException если файл не является контрольной точкой или поврежден;
+     *                     мир в этом случае не изменяется.
+     */
+    public boolean restore(RobotWorld world) throws IOException {
+        WorldState state = new WorldState();
+        if (!load(state)) {
+            return false;
+        }
+        world.restoreState(state);
+        return true;
+    }
+    /**
+     * Читает контрольную точку в state.
+     *
+     * @return false, если файла нет.
+     */
+    public boolean load(WorldState state) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Not a world checkpoint: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+            buffer.limit(0);
+            fill(channel, buffer, HEADER_SIZE);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a world checkpoint: " + file);
+            }
+            short version = buffer.getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            int size = buffer.getInt(24);
+            int obstacles = buffer.getInt(28);
+            int pathCount = buffer.getInt(32);
+            long columns = HEADER_SIZE + 8L * (ROBOT_COLUMNS * (long) size + OBSTACLE_COLUMNS * (long) obstacles);
+            if (size < 0 || obstacles < 0 || pathCount < 0 || pathCount > size || columns > length) {
+                throw new IOException("Corrupted checkpoint header: " + file);
+            }
+            state.resize(size, obstacles);
+            state.setTick(buffer.getLong(16));
+            state.setCollisionMode(constant(CollisionMode.values(), buffer.get(6)));
+            state.setMotionKernel(constant(MotionKernelType.values(), buffer.get(7)));
+            state.setMathBackend(constant(MathBackend.values(), buffer.get(8)));
+            state.setRobotRadius(buffer.getDouble(40));
+            buffer.position(HEADER_SIZE);
+            getColumn(channel, buffer, state.getXs(), size);
+            getColumn(channel, buffer, state.getYs(), size);
+            getColumn(channel, buffer, state.getDirections(), size);
+            getColumn(channel, buffer, state.getTargetXs(), size);
+            getColumn(channel, buffer, state.getTargetYs(), size);
+            getColumn(channel, buffer, state.getMaxVelocities(), size);
+            getColumn(channel, buffer, state.getMaxAngularVelocities(), size);
+            getColumn(channel, buffer, state.getObstacleXs(), obstacles);
+            getColumn(channel, buffer, state.getObstacleYs(), obstacles);
+            getColumn(channel, buffer, state.getObstacleRadii(), obstacles);
+            Arrays.fill(state.getPaths(), 0, size, null);
+            for (int i = 0; i < pathCount; i++) {
+                readPath(channel, buffer, state);
+            }
+            return true;
+        }
+    }
+
+    private void readPath(FileChannel channel, ByteBuffer buffer, WorldState state) throws IOException {
+        fill(channel, buffer, 2 * 4 + 1 + 2 * 8 + 4);
+        int index = buffer.getInt();
+        int waypoint = buffer.getInt();
+        boolean found = buffer.get() != 0;
+        double startX = buffer.getDouble();
+        double startY = buffer.getDouble();
+        int count = buffer.getInt();
+        long remaining = channel.size() - channel.position() + buffer.remaining();
+        if (index < 0 || index >= state.size() || count <= 0 || waypoint < 0 || waypoint >= count
+                || count > remaining / 16) {
+            throw new IOException("Corrupted checkpoint path");
+        }
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int k = 0; k < count; k++) {
+            fill(channel, buffer, 2 * 8);
+            xs[k] = buffer.getDouble();
+            ys[k] = buffer.getDouble();
+        }
+        state.getPaths()[index] = Path.of(startX, startY, xs, ys, found);
+        state.getWaypoints()[index] = waypoint;
+    }
+
+    /**
+     * Записывает первые count элементов массива частями размером со свободное место буфера.
+     */
+    private static void putColumn(FileChannel channel, ByteBuffer buffer, double[] values, int count)
+            throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensure(channel, buffer, Double.BYTES);
+            int chunk = Math.min(buffer.remaining() / Double.BYTES, count - offset);
+            buffer.asDoubleBuffer().put(values, offset, chunk);
+            buffer.position(buffer.position() + chunk * Double.BYTES);
+            offset += chunk;
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Читает count элементов массива частями размером с непрочитанную часть буфера.
+     */
+    private void getColumn(FileChannel channel, ByteBuffer buffer, double[] values, int count)
+            throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            fill(channel, buffer, Double.BYTES);
+            int chunk = Math.min(buffer.remaining() / Double.BYTES, count - offset);
+            buffer.asDoubleBuffer().get(values, offset, chunk);
+            buffer.position(buffer.position() + chunk * Double.BYTES);
+            offset += chunk;
+        }
+    }
+    /**
+     * Дочитывает файл в буфер, пока в нем не станет хотя бы bytes непрочитанных байт.
+     */
+    private void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated checkpoint: " + file);
+            }
+        }
+        buffer.flip();
+    }
+
+    private static <E> E constant(E[] values, byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Corrupted checkpoint: unknown setting " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,244 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+/**
+ * Визуализатор, который рисует робота из заготовок (спрайтов) другого визуализатора.
+ * Направление квантуется на HEADINGS секторов; заготовка сектора рисуется вызовом
+ * drawRobot исходного визуализатора в совместимое с устройством прозрачное изображение
+ * при первом обращении, после чего робот выводится одним копированием изображения.
+ * Такие изображения Java2D держит в видеопамяти, если это возможно.
+ * <p>
+ * Заготовки привязаны к конфигурации устройства и масштабу графики, в которых рисуется
+ * кадр, и создаются заново при их смене, поэтому при увеличении камеры робот
+ * не размывается. Если преобразование графики не сводится к равномерному масштабу
+ * и сдвигу, робот рисуется исходным визуализатором, как без кэша.
+ * <p>
+ * В drawRobots проверка преобразования и отсечение выполняются один раз на пакет,
+ * а упрощенная отрисовка ставит точки в массив пикселей слоя размером с область
+ * отсечения и выводит его одним копированием.
+ * Экземпляр не потокобезопасен: им рисует один поток отрисовки поля.
+ */
+public final class CachedRobotVisualizer implements RobotVisualizer {
+    /**
+     * Число квантованных направлений
+     */
+    public static final int HEADINGS = 64;
+    private static final double SECTOR = 2 * Math.PI / HEADINGS;
+    private final RobotVisualizer source;
+    private final int radius;
+    private final BufferedImage[] sprites = new BufferedImage[HEADINGS];
+    /**
+     * Наибольший радиус заготовки в пикселях; при большем увеличении робот рисуется без кэша
+     */
+    private static final int MAX_SPRITE_RADIUS = 128;
+    private final AffineTransform identity = new AffineTransform();
+    private GraphicsConfiguration configuration;
+    /**
+     * Масштаб, в котором нарисованы заготовки, и половина их стороны в пикселях
+     */
+    private double scale = 1;
+    private int half;
+    /**
+     * Слой точек для упрощенной отрисовки и его пиксели
+     */
+    private BufferedImage points;
+    private int[] pointPixels;
+
+    private CachedRobotVisualizer(RobotVisualizer source) {
+        this.source = source;
+        this.radius = source.getSpriteRadius();
+    }
+    /**
+     * Оборачивает визуализатор кэшем заготовок, если он это разрешает,
+     * иначе возвращает его без изменений.
+     */
+    public static RobotVisualizer wrap(RobotVisualizer visualizer) {
+        if (visualizer instanceof CachedRobotVisualizer || !visualizer.isSpriteCacheable()
+                || visualizer.getSpriteRadius() <= 0) {
+            return visualizer;
+        }
+        return new CachedRobotVisualizer(visualizer);
+    }
+    /**
+     * Возвращает исходный визуализатор.
+     */
+    public RobotVisualizer getSource() {
+        return source;
+    }
+
+    @Override
+    public void drawRobot(Graphics2D g, int x, int y, double direction) {
+        AffineTransform transform = g.getTransform();
+        if (!prepare(g, transform)) {
+            source.drawRobot(g, x, y, direction);
+            return;
+        }
+        g.setTransform(identity);
+        try {
+            blit(g, transform.getScaleX() * x + transform.getTranslateX(),
+                    transform.getScaleY() * y + transform.getTranslateY(), direction);
+        } finally {
+            g.setTransform(transform);
+        }
+    }
+
+    @Override
+    public void drawRobots(Graphics2D g, double[] xs, double[] ys, double[] directions, int count) {
+        AffineTransform transform = g.getTransform();
+        if (!prepare(g, transform)) {
+            RobotVisualizer.super.drawRobots(g, xs, ys, directions, count);
+            return;
+        }
+        double scale = transform.getScaleX();
+        double translateX = transform.getTranslateX();
+        double translateY = transform.getTranslateY();
+        g.setTransform(identity);
+        try {
+            Rectangle clip = g.getClipBounds();
+            int visible = 0;
+            for (int i = 0; i < count; i++) {
+                if (LevelOfDetail.isVisible(clip, scale * xs[i] + translateX, scale * ys[i] + translateY, half)) {
+                    visible++;
+                }
+            }
+            if (LevelOfDetail.usePoints(2 * radius * scale, visible, clip)) {
+                if (clip == null) {
+                    g.setTransform(transform);
+                    g.setColor(getPointColor());
+                    LevelOfDetail.drawPoints(g, xs, ys, count);
+                } else {
+                    drawPointLayer(g, clip, xs, ys, count, scale, translateX, translateY);
+                }
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                double x = scale * xs[i] + translateX;
+                double y = scale * ys[i] + translateY;
+                if (LevelOfDetail.isVisible(clip, x, y, half)) {
+                    blit(g, x, y, directions[i]);
+                }
+            }
+        } finally {
+            g.setTransform(transform);
+        }
+    }
+    /**
+     * Готовит заготовки для устройства и масштаба графики.
+     *
+     * @return false, если преобразование не сводится к равномерному масштабу и сдвигу
+     *         или заготовки при таком масштабе были бы слишком велики.
+     */
+    private boolean prepare(Graphics2D g, AffineTransform transform) {
+        GraphicsConfiguration device = g.getDeviceConfiguration();
+        double scaleX = transform.getScaleX();
+        if (device == null || !(scaleX > 0) || (transform.getType()
+                & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) != 0
+                || radius * scaleX > MAX_SPRITE_RADIUS) {
+            return false;
+        }
+        if (device != configuration || scaleX != scale) {
+            Arrays.fill(sprites, null);
+            configuration = device;
+            scale = scaleX;
+            half = (int) Math.ceil(radius * scaleX);
+        }
+        return true;
+    }
+    /**
+     * Выводит заготовку с центром в точке устройства; графика должна быть без преобразования.
+     */
+    private void blit(Graphics2D g, double x, double y, double direction) {
+        int heading = heading(direction);
+        BufferedImage sprite = sprites[heading];
+        if (sprite == null) {
+            sprite = render(heading);
+            sprites[heading] = sprite;
+        }
+        g.drawImage(sprite, (int) Math.floor(x + 0.5) - half, (int) Math.floor(y + 0.5) - half, null);
+    }
+    /**
+     * Номер сектора, ближайшего к направлению
+     */
+    private static int heading(double direction) {
+        long sector = Math.round(direction / SECTOR) % HEADINGS;
+        return (int) (sector < 0 ? sector + HEADINGS : sector);
+    }
+
+    private BufferedImage render(int heading) {
+        int size = 2 * half + 1;
+        BufferedImage sprite = configuration.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+        Graphics2D g = sprite.createGraphics();
+        try {
+            g.translate(half, half);
+            g.scale(scale, scale);
+            source.drawRobot(g, 0, 0, heading * SECTOR);
+        } finally {
+            g.dispose();
+        }
+        return sprite;
+    }
+    /**
+     * Ставит точки роботов в слой размером с область отсечения и выводит его.
+     * Графика без преобразования, поэтому пиксель слоя равен пикселю экрана.
+     */
+    private void drawPointLayer(Graphics2D g, Rectangle clip, double[] xs, double[] ys, int count,
+                                double scale, double translateX, double translateY) {
+        int width = clip.width;
+        int height = clip.height;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (points == null || points.getWidth() < width || points.getHeight() < height) {
+            points = new BufferedImage(Math.max(width, points == null ? 0 : points.getWidth()),
+                    Math.max(height, points == null ? 0 : points.getHeight()), BufferedImage.TYPE_INT_ARGB);
+            pointPixels = ((DataBufferInt) points.getRaster().getDataBuffer()).getData();
+        }
+        int stride = points.getWidth();
+        for (int row = 0; row < height; row++) {
+            Arrays.fill(pointPixels, row * stride, row * stride + width, 0);
+        }
+        int color = getPointColor().getRGB();
+        for (int i = 0; i < count; i++) {
+            int left = (int) Math.floor(scale * xs[i] + translateX) - clip.x;
+            int top = (int) Math.floor(scale * ys[i] + translateY) - clip.y;
+            if (left + LevelOfDetail.POINT_SIZE <= 0 || top + LevelOfDetail.POINT_SIZE <= 0
+                    || left >= width || top >= height) {
+                continue;
+            }
+            int right = Math.min(left + LevelOfDetail.POINT_SIZE, width);
+            int bottom = Math.min(top + LevelOfDetail.POINT_SIZE, height);
+            for (int row = Math.max(top, 0); row < bottom; row++) {
+                Arrays.fill(pointPixels, row * stride + Math.max(left, 0), row * stride + right, color);
+            }
+        }
+        g.drawImage(points, clip.x, clip.y, clip.x + width, clip.y + height, 0, 0, width, height, null);
+    }
+
+    @Override
+    public void drawTarget(Graphics2D g, int x, int y) {
+        source.drawTarget(g, x, y);
+    }
+
+    @Override
+    public Color getPointColor() {
+        return source.getPointColor();
+    }
+
+    @Override
+    public boolean isSpriteCacheable() {
+        return true;
+    }
+
+    @Override
+    public int getSpriteRadius() {
+        return radius;
+    }
+}
@@ -0,0 +1,79 @@
+package view;
+
+import java.awt.Graphics2D;
+/**
+ * Камера игрового поля: связывает координаты экрана с координатами мира.
+ * Точка экрана (sx, sy) соответствует точке мира (x + sx / zoom, y + sy / zoom),
+ * где (x, y) - точка мира в левом верхнем углу поля, а zoom - число пикселей
+ * на единицу мира. Камера неизменяема: сдвиг и масштабирование возвращают новую,
+ * поэтому ее можно читать из потока отрисовки без блокировок.
+ */
+public final class Camera {
+    public static final double MIN_ZOOM = 1.0 / 64;
+    public static final double MAX_ZOOM = 16;
+    /**
+     * Камера без сдвига и масштаба: единица мира равна пикселю
+     */
+    public static final Camera IDENTITY = new Camera(0, 0, 1);
+    private final double x;
+    private final double y;
+    private final double zoom;
+
+    public Camera(double x, double y, double zoom) {
+        if (!(zoom > 0) || Double.isInfinite(zoom) || Double.isNaN(x) || Double.isNaN(y)) {
+            throw new IllegalArgumentException("Invalid camera " + x + ", " + y + " zoom " + zoom);
+        }
+        this.x = x;
+        this.y = y;
+        this.zoom = zoom;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public double toWorldX(double screenX) {
+        return x + screenX / zoom;
+    }
+
+    public double toWorldY(double screenY) {
+        return y + screenY / zoom;
+    }
+
+    public double toScreenX(double worldX) {
+        return (worldX - x) * zoom;
+    }
+
+    public double toScreenY(double worldY) {
+        return (worldY - y) * zoom;
+    }
+    /**
+     * Возвращает камеру, сдвинутую на вектор в пикселях экрана.
+     */
+    public Camera pan(double screenDx, double screenDy) {
+        return new Camera(x - screenDx / zoom, y - screenDy / zoom, zoom);
+    }
+    /**
+     * Возвращает камеру с масштабом, умноженным на factor в пределах [MIN_ZOOM, MAX_ZOOM];
+     * точка мира под точкой экрана (screenX, screenY) остается на месте.
+     */
+    public Camera zoomAt(double screenX, double screenY, double factor) {
+        double newZoom = Math.min(Math.max(zoom * factor, MIN_ZOOM), MAX_ZOOM);
+        return new Camera(toWorldX(screenX) - screenX / newZoom, toWorldY(screenY) - screenY / newZoom, newZoom);
+    }
+    /**
+     * Добавляет к преобразованию графики переход от координат мира к координатам экрана.
+     */
+    public void apply(Graphics2D g) {
+        g.scale(zoom, zoom);
+        g.translate(-x, -y);
+    }
+}
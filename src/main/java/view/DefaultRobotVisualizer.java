@@ -4,15 +4,17 @@ import java.awt.geom.AffineTransform;
 /**
  * Реализация по умолчанию для визуализации робота и цели.
  * Использует комбинацию овалов для представления робота и простой кружок для цели.
+ * Изображение робота зависит только от направления, поэтому разрешает кэширование.
  */
 public class DefaultRobotVisualizer implements RobotVisualizer {
     /**
-     * Рисует стилизованное изображение робота с поворотом согласно направлению
+     * Рисует стилизованное изображение робота с поворотом согласно направлению.
+     * Поворот добавляется к текущему преобразованию и затем снимается.
      */
     @Override
     public void drawRobot(Graphics2D g, int x, int y, double direction) {
-        AffineTransform t = AffineTransform.getRotateInstance(direction, x, y);
-        g.setTransform(t);
+        AffineTransform saved = g.getTransform();
+        g.rotate(direction, x, y);
 
         g.setColor(Color.MAGENTA);
         fillOval(g, x, y, 30, 10);
@@ -25,21 +27,36 @@ public class DefaultRobotVisualizer implements RobotVisualizer {
 
         g.setColor(Color.BLACK);
         drawOval(g, x + 10, y, 5, 5);
+        g.setTransform(saved);
     }
     /**
      * Рисует цель в виде зеленого круга с черным контуром.
      */
     @Override
     public void drawTarget(Graphics2D g, int x, int y) {
-        AffineTransform t = AffineTransform.getRotateInstance(0, 0, 0);
-        g.setTransform(t);
-
         g.setColor(Color.GREEN);
         fillOval(g, x, y, 5, 5);
 
         g.setColor(Color.BLACK);
         drawOval(g, x, y, 5, 5);
     }
+
+    @Override
+    public Color getPointColor() {
+        return Color.MAGENTA;
+    }
+
+    @Override
+    public boolean isSpriteCacheable() {
+        return true;
+    }
+    /**
+     * Половина длины корпуса и линия контура
+     */
+    @Override
+    public int getSpriteRadius() {
+        return 16;
+    }
     /**
      * Вспомогательный метод для заливки овала с центром в указанных координатах
      */
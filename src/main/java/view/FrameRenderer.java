@@ -0,0 +1,235 @@
+package view;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+import javax.swing.JComponent;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+/**
+ * Активная отрисовка компонента: собственный поток рисует сцену в теневой буфер
+ * (VolatileImage) не чаще заданной частоты кадров, а поток обработки событий
+ * только копирует готовый кадр на экран. Буферов два: поток рисует в задний,
+ * затем меняет его местами с передним под блокировкой, поэтому кадр на экране
+ * никогда не бывает нарисован наполовину.
+ * <p>
+ * Кадр рисуется, только если его запросили через requestFrame; без запросов поток спит.
+ * Кадры идут с постоянным периодом: если кадр не успел к сроку, пропущенные сроки
+ * учитываются в getDroppedFrames и отсчет периода начинается заново, а не догоняет.
+ * В очереди событий одновременно стоит не больше одного запроса перерисовки.
+ * Время рисования кадров попадает в метрику render.frame.
+ */
+public final class FrameRenderer {
+    private static final Histogram FRAME_TIME = MetricsRegistry.getInstance().histogram("render.frame");
+    /**
+     * Системное свойство, задающее частоту кадров
+     */
+    public static final String FPS_PROPERTY = "robots.fps";
+    public static final int DEFAULT_FPS = 60;
+    /**
+     * Число попыток нарисовать кадр, если содержимое буфера было потеряно во время рисования
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    private final JComponent target;
+    private final Consumer<Graphics2D> scene;
+    private final long periodNanos;
+    private final Object lock = new Object();
+    /**
+     * Кадр, который выводится на экран; защищен lock
+     */
+    private VolatileImage front;
+    /**
+     * Буфер, в который рисует поток отрисовки
+     */
+    private VolatileImage back;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final AtomicBoolean presentPending = new AtomicBoolean();
+    private volatile Thread thread;
+    private volatile long lastFrameNanos = 0;
+    private volatile long averageFrameNanos = 0;
+    private volatile long frames = 0;
+    private volatile long droppedFrames = 0;
+    /**
+     * Создает отрисовку компонента; поток запускается методом start.
+     *
+     * @param scene Рисует сцену; вызывается только из потока отрисовки.
+     * @param fps   Наибольшая частота кадров.
+     */
+    public FrameRenderer(JComponent target, Consumer<Graphics2D> scene, int fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("fps must be positive: " + fps);
+        }
+        this.target = target;
+        this.scene = scene;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / fps;
+    }
+    /**
+     * Возвращает частоту кадров из системного свойства robots.fps
+     * или DEFAULT_FPS, если свойство не задано или не положительно.
+     */
+    public static int fpsFromProperty() {
+        int fps = Integer.getInteger(FPS_PROPERTY, DEFAULT_FPS);
+        return fps > 0 ? fps : DEFAULT_FPS;
+    }
+    /**
+     * Запускает поток отрисовки, если он еще не запущен.
+     */
+    public void start() {
+        if (thread != null) {
+            return;
+        }
+        Thread renderThread = new Thread(this::run, "robot-render");
+        renderThread.setDaemon(true);
+        thread = renderThread;
+        dirty.set(true);
+        renderThread.start();
+    }
+    /**
+     * Останавливает поток отрисовки; текущий кадр дорисовывается.
+     */
+    public void stop() {
+        Thread renderThread = thread;
+        thread = null;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+        }
+    }
+    /**
+     * Запрашивает новый кадр. Запросы между кадрами объединяются в один.
+     */
+    public void requestFrame() {
+        dirty.set(true);
+        Thread renderThread = thread;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+        }
+    }
+    /**
+     * Выводит готовый кадр; вызывается из paintComponent.
+     *
+     * @return false, если кадра еще нет или он потерян; тогда новый кадр запрошен.
+     */
+    public boolean paint(Graphics g) {
+        presentPending.set(false);
+        boolean painted = false;
+        synchronized (lock) {
+            if (front != null && !front.contentsLost()) {
+                painted = g.drawImage(front, 0, 0, null);
+            }
+        }
+        if (painted) {
+            Toolkit.getDefaultToolkit().sync();
+        } else {
+            requestFrame();
+        }
+        return painted;
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        long deadline = System.nanoTime();
+        while (thread == self) {
+            if (!dirty.getAndSet(false)) {
+                LockSupport.park(this);
+                deadline = Math.max(deadline, System.nanoTime());
+                continue;
+            }
+            long start = System.nanoTime();
+            if (renderFrame()) {
+                measure(System.nanoTime() - start);
+                if (presentPending.compareAndSet(false, true)) {
+                    target.repaint();
+                }
+            }
+            deadline += periodNanos;
+            long now = System.nanoTime();
+            if (now > deadline) {
+                droppedFrames += (now - deadline) / periodNanos + 1;
+                deadline = now;
+            }
+            while (now < deadline && thread == self) {
+                LockSupport.parkNanos(this, deadline - now);
+                now = System.nanoTime();
+            }
+        }
+    }
+    /**
+     * Рисует сцену в задний буфер и делает его передним.
+     *
+     * @return false, если компонент не показан или буфер терялся при каждой попытке.
+     */
+    private boolean renderFrame() {
+        int width = target.getWidth();
+        int height = target.getHeight();
+        GraphicsConfiguration configuration = target.getGraphicsConfiguration();
+        if (width <= 0 || height <= 0 || configuration == null) {
+            return false;
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (back == null || back.getWidth() != width || back.getHeight() != height
+                    || back.validate(configuration) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (back != null) {
+                    back.flush();
+                }
+                back = configuration.createCompatibleVolatileImage(width, height);
+            }
+            Graphics2D g = back.createGraphics();
+            try {
+                g.setColor(target.getBackground());
+                g.fillRect(0, 0, width, height);
+                scene.accept(g);
+            } finally {
+                g.dispose();
+            }
+            if (!back.contentsLost()) {
+                synchronized (lock) {
+                    VolatileImage shown = front;
+                    front = back;
+                    back = shown;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void measure(long nanos) {
+        FRAME_TIME.record(nanos);
+        lastFrameNanos = nanos;
+        averageFrameNanos = frames == 0 ? nanos : averageFrameNanos + (nanos - averageFrameNanos) / 16;
+        frames++;
+    }
+    /**
+     * Время рисования последнего кадра в наносекундах.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+    /**
+     * Скользящее среднее времени рисования кадра в наносекундах.
+     */
+    public long getAverageFrameNanos() {
+        return averageFrameNanos;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+    /**
+     * Число сроков кадров, пропущенных из-за того, что кадр рисовался дольше периода.
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+}
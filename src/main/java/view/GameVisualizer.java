@@ -1,51 +1,269 @@
 package view;
 
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.PaintEvent;
+import metrics.SceneEvent;
+import model.Path;
 import model.RobotModel;
+import model.RobotState;
+import model.RobotStateListener;
+import model.RobotWorld;
+import model.TrajectoryHistory;
+import model.WorldSnapshot;
 
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.AffineTransform;
 import javax.swing.*;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 /**
  * Класс GameVisualizer отвечает за визуализацию робота и цели на игровом поле.
  * Он отображает текущее состояние модели (RobotModel) и обрабатывает события мыши
- * для обновления позиции цели.
+ * для обновления позиции цели. Мир показывается через камеру (Camera) с масштабом
+ * и сдвигом; видимые роботы выбираются пространственным индексом мира и рисуются
+ * одним пакетом через RobotVisualizer.drawRobots, поэтому время кадра зависит
+ * от числа видимых роботов, а не от размера мира. Если мир ведет историю траекторий, за роботом
+ * рисуется его след за последние TRAIL_DURATION единиц времени.
+ * <p>
+ * В режиме RenderMode.ACTIVE поле рисует FrameRenderer в своем потоке с частотой
+ * не выше заданной, а изменения модели только запрашивают кадр; в режиме
+ * RenderMode.PASSIVE каждое изменение вызывает repaint.
  */
-public class GameVisualizer extends JPanel implements PropertyChangeListener {
+public class GameVisualizer extends JPanel implements RobotStateListener {
     private final RobotModel model;
-    private RobotVisualizer visualizer;
+    private volatile RobotVisualizer visualizer;
+    private static final Histogram PAINT_TIME = MetricsRegistry.getInstance().histogram("paint.time");
+    private final RobotState state = new RobotState();
+    private final WorldSnapshot fleet = new WorldSnapshot();
+    private volatile Camera camera = Camera.IDENTITY;
     /**
-    * Создает GameVisualizer для отображения состояния модели.
+     * Длительность следа робота в единицах длительности такта (мс)
+     */
+    public static final double TRAIL_DURATION = 10_000;
+    /**
+     * Число тактов между отсчетами истории для следа
+     */
+    private static final int TRAIL_SAMPLE_EVERY = 5;
+    private final TrailRenderer trails = new TrailRenderer(TRAIL_DURATION, new Color(0, 0, 255, 160));
+    /**
+     * Активная отрисовка или null в пассивном режиме
+     */
+    private final FrameRenderer renderer;
+    /**
+    * Создает GameVisualizer для отображения состояния модели
+    * в режиме отрисовки из системного свойства robots.render.
     */
     public GameVisualizer(RobotModel model, RobotVisualizer visualizer) {
+        this(model, visualizer, RenderMode.fromProperty());
+    }
+    /**
+     * Создает GameVisualizer с заданным режимом отрисовки.
+     */
+    public GameVisualizer(RobotModel model, RobotVisualizer visualizer, RenderMode mode) {
         this.model = model;
-        this.visualizer = visualizer;
-        model.addPropertyChangeListener(this);
+        this.visualizer = CachedRobotVisualizer.wrap(visualizer);
+        model.addStateListener(this);
         setDoubleBuffered(true);
+        if (mode == RenderMode.ACTIVE) {
+            renderer = new FrameRenderer(this, this::drawScene, FrameRenderer.fpsFromProperty());
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    renderer.requestFrame();
+                }
+            });
+        } else {
+            renderer = null;
+        }
+    }
+    /**
+     * Создает историю траекторий, которой хватает на след длительностью TRAIL_DURATION
+     * при такте stepMillis.
+     */
+    public static TrajectoryHistory createTrailHistory(int stepMillis) {
+        int samples = (int) Math.ceil(TRAIL_DURATION / ((double) stepMillis * TRAIL_SAMPLE_EVERY)) + 1;
+        return new TrajectoryHistory(samples, TRAIL_SAMPLE_EVERY);
     }
     /**
-     * Изменяет стратегию визуализации
+     * Изменяет стратегию визуализации. Если визуализатор разрешает кэширование,
+     * робот рисуется из его заготовок (см. CachedRobotVisualizer).
      */
     public void setVisualizer(RobotVisualizer visualizer) {
-        this.visualizer = visualizer;
-        repaint();
+        this.visualizer = CachedRobotVisualizer.wrap(visualizer);
+        requestRepaint();
+    }
+    public Camera getCamera() {
+        return camera;
+    }
+    /**
+     * Задает камеру поля и запрашивает перерисовку.
+     */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+        requestRepaint();
     }
     /**
-     * Отрисовывает компонент, делегируя рисование текущему визуализатору
+     * Возвращает активную отрисовку поля или null в пассивном режиме.
+     */
+    public FrameRenderer getFrameRenderer() {
+        return renderer;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (renderer != null) {
+            renderer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (renderer != null) {
+            renderer.stop();
+        }
+        super.removeNotify();
+    }
+    /**
+     * Отрисовывает компонент: выводит готовый кадр активной отрисовки
+     * или рисует сцену сам в пассивном режиме
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D)g;
-        visualizer.drawTarget(g2d, round(model.getTargetX()), round(model.getTargetY()));
-        visualizer.drawRobot(g2d, round(model.getX()), round(model.getY()), model.getDirection());
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean active = false;
+        if (renderer == null) {
+            super.paintComponent(g);
+            drawScene((Graphics2D) g);
+        } else if (renderer.paint(g)) {
+            active = true;
+        } else {
+            super.paintComponent(g);
+        }
+        PAINT_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            event.active = active;
+            event.width = getWidth();
+            event.height = getHeight();
+            event.commit();
+        }
+    }
+    /**
+     * Рисует сцену, делегируя рисование робота и цели текущему визуализатору
+     */
+    private void drawScene(Graphics2D g2d) {
+        SceneEvent event = new SceneEvent();
+        event.begin();
+        AffineTransform saved = g2d.getTransform();
+        int robots;
+        try {
+            robots = drawWorld(g2d);
+        } finally {
+            g2d.setTransform(saved);
+        }
+        if (event.shouldCommit()) {
+            event.robots = robots;
+            event.zoom = camera.getZoom();
+            event.commit();
+        }
     }
     /**
-     * Реакция на изменения в модели - запрос перерисовки
+     * Рисует мир через камеру.
+     *
+     * @return Число нарисованных роботов.
+     */
+    private int drawWorld(Graphics2D g2d) {
+        RobotVisualizer visualizer = this.visualizer;
+        Camera camera = this.camera;
+        camera.apply(g2d);
+        double margin = visualizer.getSpriteRadius();
+        double minX = camera.getX() - margin;
+        double minY = camera.getY() - margin;
+        double maxX = camera.toWorldX(getWidth()) + margin;
+        double maxY = camera.toWorldY(getHeight()) + margin;
+        drawObstacles(g2d, minX, minY, maxX, maxY);
+        RobotWorld world = model.getWorld();
+        int robots = 1;
+        if (world.size() > 1) {
+            world.snapshot(fleet, minX, minY, maxX, maxY);
+            visualizer.drawRobots(g2d, fleet.getXs(), fleet.getYs(), fleet.getDirections(), fleet.size());
+            robots = fleet.size();
+        }
+        TrajectoryHistory history = world.getTrajectoryHistory();
+        if (history != null) {
+            trails.draw(g2d, history, model.getIndex());
+        }
+        model.readState(state);
+        Path path = model.getPath();
+        if (path != null) {
+            drawPath(g2d, path);
+            visualizer.drawTarget(g2d, round(path.getTargetX()), round(path.getTargetY()));
+        } else {
+            visualizer.drawTarget(g2d, round(state.getTargetX()), round(state.getTargetY()));
+        }
+        visualizer.drawRobot(g2d, round(state.getX()), round(state.getY()), state.getDirection());
+        return robots;
+    }
+    /**
+     * Рисует неподвижные препятствия мира робота, задевающие видимый прямоугольник
+     */
+    private void drawObstacles(Graphics2D g, double minX, double minY, double maxX, double maxY) {
+        RobotWorld world = model.getWorld();
+        int count = world.getObstacleCount();
+        if (count == 0) {
+            return;
+        }
+        g.setColor(Color.GRAY);
+        for (int i = 0; i < count; i++) {
+            double x = world.getObstacleX(i);
+            double y = world.getObstacleY(i);
+            double r = world.getObstacleRadius(i);
+            if (x + r < minX || x - r > maxX || y + r < minY || y - r > maxY) {
+                continue;
+            }
+            int radius = round(r);
+            g.fillOval(round(x) - radius, round(y) - radius, 2 * radius, 2 * radius);
+        }
+    }
+    /**
+     * Рисует ломаную пути робота от начала через путевые точки к цели
+     */
+    private void drawPath(Graphics2D g, Path path) {
+        g.setColor(Color.LIGHT_GRAY);
+        int previousX = round(path.getStartX());
+        int previousY = round(path.getStartY());
+        for (int i = 0; i < path.size(); i++) {
+            int x = round(path.getX(i));
+            int y = round(path.getY(i));
+            g.drawLine(previousX, previousY, x, y);
+            previousX = x;
+            previousY = y;
+        }
+    }
+    /**
+     * Реакция на перемещение робота - запрос перерисовки
+     */
+    @Override
+    public void onPositionChanged(double x, double y, double direction) {
+        requestRepaint();
+    }
+    /**
+     * Реакция на смену цели - запрос перерисовки
      */
     @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        repaint();
+    public void onTargetChanged(int x, int y) {
+        requestRepaint();
+    }
+
+    private void requestRepaint() {
+        if (renderer != null) {
+            renderer.requestFrame();
+        } else {
+            repaint();
+        }
     }
     /**
      * Округление координат для целочисленного позиционирования
@@ -0,0 +1,88 @@
+package view;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+/**
+ * Правила пакетной отрисовки роботов: отсечение по области рисования
+ * и выбор упрощенной отрисовки точками, когда роботы на экране мелкие
+ * или их так много, что изображения перекрывали бы друг друга.
+ */
+final class LevelOfDetail {
+    /**
+     * Наименьший размер робота на экране в пикселях, при котором он рисуется полностью
+     */
+    static final double MIN_DETAIL_PIXELS = 4;
+    /**
+     * Во сколько раз изображения видимых роботов в сумме могут перекрыть область рисования
+     */
+    static final double MAX_OVERDRAW = 4;
+    /**
+     * Сторона точки робота в пикселях
+     */
+    static final int POINT_SIZE = 2;
+
+    private LevelOfDetail() {
+    }
+    /**
+     * Возвращает масштаб преобразования - длину единичного отрезка на экране.
+     */
+    static double scale(AffineTransform transform) {
+        return Math.sqrt(Math.abs(transform.getDeterminant()));
+    }
+    /**
+     * Проверяет, попадает ли изображение робота радиуса radius в прямоугольник отсечения.
+     */
+    static boolean isVisible(Rectangle clip, double x, double y, double radius) {
+        return clip == null || (x + radius >= clip.x && x - radius <= clip.x + clip.width
+                && y + radius >= clip.y && y - radius <= clip.y + clip.height);
+    }
+    /**
+     * Считает роботов, чьи изображения попадают в прямоугольник отсечения.
+     */
+    static int countVisible(Rectangle clip, double[] xs, double[] ys, int count, double radius) {
+        if (clip == null) {
+            return count;
+        }
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            if (isVisible(clip, xs[i], ys[i], radius)) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+    /**
+     * Решает, рисовать ли роботов точками.
+     *
+     * @param pixels  Размер изображения робота на экране в пикселях.
+     * @param visible Число видимых роботов.
+     * @param clip    Область рисования в пикселях или null, если она не ограничена.
+     */
+    static boolean usePoints(double pixels, int visible, Rectangle clip) {
+        if (pixels < MIN_DETAIL_PIXELS) {
+            return true;
+        }
+        return clip != null && visible * pixels * pixels > MAX_OVERDRAW * clip.width * (double) clip.height;
+    }
+    /**
+     * Рисует видимых роботов квадратами POINT_SIZE пикселей в координатах устройства,
+     * так что размер точки не зависит от масштаба. Преобразование графики восстанавливается.
+     */
+    static void drawPoints(Graphics2D g, double[] xs, double[] ys, int count) {
+        AffineTransform saved = g.getTransform();
+        g.setTransform(new AffineTransform());
+        try {
+            Rectangle clip = g.getClipBounds();
+            for (int i = 0; i < count; i++) {
+                double x = saved.getScaleX() * xs[i] + saved.getShearX() * ys[i] + saved.getTranslateX();
+                double y = saved.getShearY() * xs[i] + saved.getScaleY() * ys[i] + saved.getTranslateY();
+                if (isVisible(clip, x, y, POINT_SIZE)) {
+                    g.fillRect((int) x, (int) y, POINT_SIZE, POINT_SIZE);
+                }
+            }
+        } finally {
+            g.setTransform(saved);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package view;
+/**
+ * Способ отрисовки игрового поля.
+ */
+public enum RenderMode {
+    /**
+     * Поле рисует диспетчер перерисовки Swing в потоке обработки событий
+     * по запросу repaint на каждое изменение модели.
+     */
+    PASSIVE,
+    /**
+     * Поле рисует собственный поток в теневой буфер с заданной частотой кадров,
+     * а поток обработки событий только выводит готовый кадр.
+     */
+    ACTIVE;
+    /**
+     * Системное свойство, задающее способ по умолчанию
+     */
+    public static final String PROPERTY = "robots.render";
+    /**
+     * Возвращает способ, указанный в системном свойстве robots.render,
+     * или ACTIVE, если свойство не задано или содержит неизвестное значение.
+     */
+    public static RenderMode fromProperty() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (RenderMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return ACTIVE;
+    }
+}
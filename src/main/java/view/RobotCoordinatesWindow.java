@@ -4,10 +4,9 @@ import localization.LocaleChangeListener;
 import localization.LocaleManager;
 import log.Logger;
 import model.RobotModel;
+import model.RobotStateListener;
 
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import javax.swing.JInternalFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -15,7 +14,7 @@ import javax.swing.JPanel;
 /**
  * Внутреннее окно для отображения текущих координат робота.
  */
-public class RobotCoordinatesWindow extends JInternalFrame implements PropertyChangeListener, LocaleChangeListener {
+public class RobotCoordinatesWindow extends JInternalFrame implements RobotStateListener, LocaleChangeListener {
     private final JLabel coordinatesLabel;
     /**
      * Создает внутреннее окно для отображения координат робота.
@@ -31,7 +30,7 @@ public class RobotCoordinatesWindow extends JInternalFrame implements PropertyCh
         panel.add(coordinatesLabel);
         add(panel, BorderLayout.CENTER);
         LocaleManager.getInstance().addListener(this);
-        model.addPropertyChangeListener(this);
+        model.addStateListener(this);
         updateCoordinates(model.getX(), model.getY());
     }
     /**
@@ -53,15 +52,10 @@ public class RobotCoordinatesWindow extends JInternalFrame implements PropertyCh
     }
 
     /**
-     * Реагирует на изменения в модели.
-     *
-     * @param evt Событие изменения свойства.
+     * Реагирует на перемещение робота.
      */
     @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        if ("position".equals(evt.getPropertyName())) {
-            Point newPosition = (Point) evt.getNewValue();
-            updateCoordinates(newPosition.getX(), newPosition.getY());
-        }
+    public void onPositionChanged(double x, double y, double direction) {
+        updateCoordinates(x, y);
     }
 }
\ No newline at end of file
@@ -1,9 +1,19 @@
 package view;
 
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 /**
  * Интерфейс для визуализации робота и цели на игровом поле.
  * Определяет контракт для отрисовки графических компонентов.
+ * <p>
+ * Визуализатор, у которого изображение робота зависит только от направления,
+ * может разрешить кэширование (isSpriteCacheable): тогда поле один раз рисует
+ * робота в заготовки для набора направлений и дальше только копирует их.
+ * <p>
+ * Поле рисует всех роботов мира одним вызовом drawRobots. Реализация по умолчанию
+ * пропускает роботов вне области отсечения и рисует остальных через drawRobot,
+ * а если роботы на экране мельче нескольких пикселей или перекрывали бы друг друга,
+ * рисует их точками цвета getPointColor.
  */
 public interface RobotVisualizer {
     /**
@@ -14,4 +24,45 @@ public interface RobotVisualizer {
      * Отрисовывает целевую точку для движения робота.
      */
     void drawTarget(Graphics2D g, int x, int y);
+    /**
+     * Отрисовывает первых count роботов по массивам координат и направлений.
+     */
+    default void drawRobots(Graphics2D g, double[] xs, double[] ys, double[] directions, int count) {
+        AffineTransform transform = g.getTransform();
+        Rectangle clip = g.getClipBounds();
+        int radius = getSpriteRadius();
+        double scale = LevelOfDetail.scale(transform);
+        int visible = LevelOfDetail.countVisible(clip, xs, ys, count, radius);
+        Rectangle deviceClip = clip == null ? null : transform.createTransformedShape(clip).getBounds();
+        if (LevelOfDetail.usePoints(2 * radius * scale, visible, deviceClip)) {
+            g.setColor(getPointColor());
+            LevelOfDetail.drawPoints(g, xs, ys, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (LevelOfDetail.isVisible(clip, xs[i], ys[i], radius)) {
+                drawRobot(g, (int) (xs[i] + 0.5), (int) (ys[i] + 0.5), directions[i]);
+            }
+        }
+    }
+    /**
+     * Цвет робота, нарисованного точкой.
+     */
+    default Color getPointColor() {
+        return Color.DARK_GRAY;
+    }
+    /**
+     * Разрешает рисовать робота из заготовок, снятых с drawRobot для квантованных направлений.
+     * По умолчанию кэширование выключено, и drawRobot вызывается для каждого кадра.
+     */
+    default boolean isSpriteCacheable() {
+        return false;
+    }
+    /**
+     * Радиус круга с центром в точке робота, в который помещается его изображение
+     * при любом направлении; задает размер заготовки.
+     */
+    default int getSpriteRadius() {
+        return 16;
+    }
 }
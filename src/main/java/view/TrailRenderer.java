@@ -0,0 +1,61 @@
+package view;
+
+import model.TrajectoryHistory;
+
+import java.awt.*;
+/**
+ * Рисует след робота - его путь за последние duration единиц времени из TrajectoryHistory.
+ * След делится на несколько отрезков, которые тем прозрачнее, чем они старше.
+ * Буферы отсчетов переиспользуются, поэтому отрисовка не создает объектов.
+ */
+public class TrailRenderer {
+    /**
+     * Число ступеней прозрачности следа
+     */
+    private static final int BANDS = 4;
+    private final double duration;
+    private final Color[] colors = new Color[BANDS];
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private int[] pointsX = new int[0];
+    private int[] pointsY = new int[0];
+    /**
+     * @param duration Длительность следа в единицах длительности такта мира.
+     * @param color    Цвет самой новой части следа.
+     */
+    public TrailRenderer(double duration, Color color) {
+        this.duration = duration;
+        for (int band = 0; band < BANDS; band++) {
+            int alpha = color.getAlpha() * (band + 1) / BANDS;
+            colors[band] = new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
+        }
+    }
+    /**
+     * Рисует след робота с индексом robot.
+     */
+    public void draw(Graphics2D g, TrajectoryHistory history, int robot) {
+        int samples = history.getSamples();
+        if (xs.length < samples) {
+            xs = new float[samples];
+            ys = new float[samples];
+            pointsX = new int[samples];
+            pointsY = new int[samples];
+        }
+        int count = history.read(robot, history.getLatestTime() - duration, xs, ys, null);
+        if (count < 2) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            pointsX[i] = Math.round(xs[i]);
+            pointsY[i] = Math.round(ys[i]);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            int from = (count - 1) * band / BANDS;
+            int to = (count - 1) * (band + 1) / BANDS;
+            g.setColor(colors[band]);
+            for (int i = from; i < to; i++) {
+                g.drawLine(pointsX[i], pointsY[i], pointsX[i + 1], pointsY[i + 1]);
+            }
+        }
+    }
+}